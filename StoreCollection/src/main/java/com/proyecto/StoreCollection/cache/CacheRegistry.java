@@ -0,0 +1,33 @@
+package com.proyecto.StoreCollection.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Punto único donde se crean las cachés en memoria de la aplicación,
+ * para poder consultar sus métricas desde /api/admin/cache/stats.
+ */
+@Component
+public class CacheRegistry {
+
+    private final Map<String, TtlCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    public <K, V> TtlCache<K, V> crear(String nombre, int maxSize, long ttlMillis) {
+        TtlCache<K, V> cache = new TtlCache<>(nombre, maxSize, ttlMillis);
+        if (caches.putIfAbsent(nombre, cache) != null) {
+            throw new IllegalStateException("Ya existe una caché registrada con el nombre: " + nombre);
+        }
+        return cache;
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> resultado = new LinkedHashMap<>();
+        caches.values().stream()
+                .sorted((a, b) -> a.getNombre().compareTo(b.getNombre()))
+                .forEach(c -> resultado.put(c.getNombre(), c.stats()));
+        return resultado;
+    }
+}
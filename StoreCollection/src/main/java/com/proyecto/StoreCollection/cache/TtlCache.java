@@ -0,0 +1,204 @@
+package com.proyecto.StoreCollection.cache;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Caché en memoria acotada (maxSize) con expiración por entrada (TTL).
+ * Pensada para datos pequeños y muy leídos (tiendas, usuarios, catálogos).
+ * Expone contadores de hits / misses / evictions para monitoreo.
+ */
+public class TtlCache<K, V> {
+
+    private final String nombre;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<K, Entrada<V>> entradas = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Se incrementa en cada invalidación explícita (no por expiración ni por falta de espacio)
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    private record Entrada<V>(V valor, long expiraEn) {
+        boolean expirada(long ahora) {
+            return ahora >= expiraEn;
+        }
+    }
+
+    public TtlCache(String nombre, int maxSize, long ttlMillis) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize debe ser mayor que cero");
+        this.nombre = nombre;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    // ======================== LECTURA ========================
+
+    public V get(K key) {
+        Entrada<V> e = entradas.get(key);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        if (e.expirada(System.currentTimeMillis())) {
+            if (entradas.remove(key, e)) evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.valor();
+    }
+
+    /**
+     * Devuelve el valor cacheado o lo calcula con el loader.
+     * Si el loader devuelve null no se guarda nada (no cacheamos "no encontrado").
+     * Si hubo una invalidación mientras el loader leía, el valor se devuelve pero no se guarda.
+     */
+    public V get(K key, Function<K, V> loader) {
+        V valor = get(key);
+        if (valor != null) return valor;
+
+        long antes = invalidaciones.get();
+        valor = loader.apply(key);
+        if (valor != null && invalidaciones.get() == antes) put(key, valor);
+        return valor;
+    }
+
+    /**
+     * Como get(key, loader) para varias claves: las que faltan se piden juntas al loader (ej. un IN).
+     * Lo que el loader no devuelve queda fuera del resultado y no se cachea.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, V> resultado = new LinkedHashMap<>();
+        Set<K> faltantes = new LinkedHashSet<>();
+        for (K key : keys) {
+            V valor = get(key);
+            if (valor != null) resultado.put(key, valor);
+            else faltantes.add(key);
+        }
+        if (faltantes.isEmpty()) return resultado;
+
+        long antes = invalidaciones.get();
+        Map<K, V> cargados = loader.apply(faltantes);
+        boolean guardar = invalidaciones.get() == antes;
+        cargados.forEach((key, valor) -> {
+            if (valor == null) return;
+            resultado.put(key, valor);
+            if (guardar) put(key, valor);
+        });
+        return resultado;
+    }
+
+    // ======================== ESCRITURA ========================
+
+    public void put(K key, V valor) {
+        put(key, valor, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /** Guarda con una expiración absoluta propia (ej. el exp de un JWT). */
+    public void put(K key, V valor, long expiraEnMillis) {
+        long limite = System.currentTimeMillis() + ttlMillis;
+        if (entradas.size() >= maxSize && !entradas.containsKey(key)) {
+            hacerEspacio();
+        }
+        entradas.put(key, new Entrada<>(valor, Math.min(expiraEnMillis, limite)));
+    }
+
+    // ======================== INVALIDACIÓN ========================
+
+    public void evict(K key) {
+        invalidaciones.incrementAndGet();
+        if (entradas.remove(key) != null) evictions.increment();
+    }
+
+    public void evictIf(Predicate<V> condicion) {
+        invalidaciones.incrementAndGet();
+        entradas.entrySet().removeIf(e -> {
+            boolean borrar = condicion.test(e.getValue().valor());
+            if (borrar) evictions.increment();
+            return borrar;
+        });
+    }
+
+    public void evictKeysIf(Predicate<K> condicion) {
+        invalidaciones.incrementAndGet();
+        entradas.keySet().removeIf(k -> {
+            boolean borrar = condicion.test(k);
+            if (borrar) evictions.increment();
+            return borrar;
+        });
+    }
+
+    public void clear() {
+        invalidaciones.incrementAndGet();
+        evictions.add(entradas.size());
+        entradas.clear();
+    }
+
+    /** Recorre las entradas vigentes. Si los valores son mutables, sincronizarlos es cosa de quien los usa. */
+    public void forEach(BiConsumer<K, V> accion) {
+        long ahora = System.currentTimeMillis();
+        entradas.forEach((k, e) -> {
+            if (!e.expirada(ahora)) accion.accept(k, e.valor());
+        });
+    }
+
+    public int size() {
+        return entradas.size();
+    }
+
+    // Primero quita las expiradas; si sigue lleno, la que vence antes
+    private void hacerEspacio() {
+        long ahora = System.currentTimeMillis();
+        entradas.entrySet().removeIf(e -> {
+            boolean expirada = e.getValue().expirada(ahora);
+            if (expirada) evictions.increment();
+            return expirada;
+        });
+
+        while (entradas.size() >= maxSize) {
+            K candidata = null;
+            long menor = Long.MAX_VALUE;
+            for (Map.Entry<K, Entrada<V>> e : entradas.entrySet()) {
+                if (e.getValue().expiraEn() < menor) {
+                    menor = e.getValue().expiraEn();
+                    candidata = e.getKey();
+                }
+            }
+            if (candidata == null) return;
+            if (entradas.remove(candidata) != null) evictions.increment();
+        }
+    }
+
+    // ======================== MÉTRICAS ========================
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entradas.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRatio", (h + m) == 0 ? 0.0 : (double) h / (h + m));
+        return stats;
+    }
+}
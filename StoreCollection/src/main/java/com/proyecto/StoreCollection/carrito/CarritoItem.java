@@ -0,0 +1,11 @@
+package com.proyecto.StoreCollection.carrito;
+
+/**
+ * Línea de carrito tal como la guarda un CarritoStore (solo ids, sin entidades).
+ */
+public record CarritoItem(Integer id, String sessionId, Integer tiendaId, Integer varianteId, int cantidad) {
+
+    public CarritoItem conCantidad(int nuevaCantidad) {
+        return new CarritoItem(id, sessionId, tiendaId, varianteId, nuevaCantidad);
+    }
+}
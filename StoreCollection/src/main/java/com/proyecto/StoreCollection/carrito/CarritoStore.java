@@ -0,0 +1,35 @@
+package com.proyecto.StoreCollection.carrito;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Almacenamiento de los carritos por (sessionId, tiendaId).
+ * Implementaciones: MemoriaCarritoStore (en memoria, volcado diferido; la de por defecto) y
+ * JpaCarritoStore (tabla carrito, escritura inmediata). Se elige con app.carrito.store.
+ */
+public interface CarritoStore {
+
+    List<CarritoItem> listar(String sessionId, Integer tiendaId);
+
+    Optional<CarritoItem> buscar(Integer id);
+
+    CarritoItem agregar(String sessionId, Integer tiendaId, Integer varianteId, int cantidad);
+
+    CarritoItem actualizarCantidad(Integer id, int cantidad);
+
+    /** Devuelve el item eliminado (vacío si no existía). */
+    Optional<CarritoItem> eliminar(Integer id);
+
+    /** Devuelve los items que tenía el carrito. */
+    List<CarritoItem> vaciar(String sessionId, Integer tiendaId);
+
+    /**
+     * Altas (varianteId -> cantidad), cambios de cantidad (id -> cantidad) y bajas (ids)
+     * de un mismo carrito en una sola operación. Devuelve las altas con su id asignado.
+     */
+    List<CarritoItem> aplicar(String sessionId, Integer tiendaId, Map<Integer, Integer> altas,
+                              Map<Integer, Integer> cambios, Set<Integer> bajas);
+}
@@ -0,0 +1,104 @@
+package com.proyecto.StoreCollection.carrito;
+
+import com.proyecto.StoreCollection.entity.Carrito;
+import com.proyecto.StoreCollection.entity.ProductoVariante;
+import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.repository.CarritoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Carrito directamente sobre la tabla: cada cambio es un INSERT/UPDATE/DELETE en su propia
+ * transacción (el servicio del carrito no abre una). Los ids los da el AUTO_INCREMENT; sirve
+ * con varias instancias sin afinidad de sesión, a costa de una escritura por clic.
+ */
+@Component
+@Transactional
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.carrito.store", havingValue = "jpa")
+public class JpaCarritoStore implements CarritoStore {
+
+    private final CarritoRepository repository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CarritoItem> listar(String sessionId, Integer tiendaId) {
+        return repository.findItemsBySessionIdAndTiendaId(sessionId, tiendaId).stream()
+                .map(JpaCarritoStore::toItem)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CarritoItem> buscar(Integer id) {
+        return repository.findById(id).map(JpaCarritoStore::toItem);
+    }
+
+    @Override
+    public CarritoItem agregar(String sessionId, Integer tiendaId, Integer varianteId, int cantidad) {
+        Carrito carrito = new Carrito();
+        carrito.setSessionId(sessionId);
+        carrito.setTienda(entityManager.getReference(Tienda.class, tiendaId));
+        carrito.setVariante(entityManager.getReference(ProductoVariante.class, varianteId));
+        carrito.setCantidad(cantidad);
+        return toItem(repository.save(carrito));
+    }
+
+    @Override
+    public CarritoItem actualizarCantidad(Integer id, int cantidad) {
+        Carrito carrito = repository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Carrito no encontrado con ID: " + id));
+        carrito.setCantidad(cantidad);
+        return toItem(repository.save(carrito));
+    }
+
+    @Override
+    public Optional<CarritoItem> eliminar(Integer id) {
+        Optional<Carrito> carrito = repository.findById(id);
+        carrito.ifPresent(repository::delete);
+        return carrito.map(JpaCarritoStore::toItem);
+    }
+
+    @Override
+    public List<CarritoItem> vaciar(String sessionId, Integer tiendaId) {
+        List<Carrito> items = repository.findBySessionIdAndTiendaId(sessionId, tiendaId);
+        repository.deleteAll(items);
+        return items.stream().map(JpaCarritoStore::toItem).toList();
+    }
+
+    @Override
+    public List<CarritoItem> aplicar(String sessionId, Integer tiendaId, Map<Integer, Integer> altas,
+                                     Map<Integer, Integer> cambios, Set<Integer> bajas) {
+        if (!bajas.isEmpty()) {
+            repository.eliminarPorIds(bajas);
+        }
+        cambios.forEach(repository::actualizarCantidad);
+
+        List<CarritoItem> nuevos = new ArrayList<>(altas.size());
+        altas.forEach((varianteId, cantidad) -> nuevos.add(agregar(sessionId, tiendaId, varianteId, cantidad)));
+        return nuevos;
+    }
+
+    static CarritoItem toItem(Object[] row) {
+        return new CarritoItem((Integer) row[0], (String) row[1], (Integer) row[2], (Integer) row[3],
+                row[4] != null ? (Integer) row[4] : 0);
+    }
+
+    static CarritoItem toItem(Carrito c) {
+        return new CarritoItem(c.getId(), c.getSessionId(), c.getTienda().getId(),
+                c.getVariante().getId(), c.getCantidad() != null ? c.getCantidad() : 0);
+    }
+}
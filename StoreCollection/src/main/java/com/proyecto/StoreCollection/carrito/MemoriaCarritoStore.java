@@ -0,0 +1,334 @@
+package com.proyecto.StoreCollection.carrito;
+
+import com.proyecto.StoreCollection.repository.CarritoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Carritos en memoria por (sessionId, tiendaId), con volcado diferido a la tabla carrito:
+ * los clics del carrito no toman conexiones del pool; cada volcado es un INSERT ... ON DUPLICATE KEY
+ * y un DELETE ... IN por lote. Un carrito que no está en memoria se lee de la tabla la primera vez.
+ *
+ * Es el store por defecto. Los ids salen de bloques reservados en carrito_secuencia
+ * (app.carrito.bloque-ids por vez), así que varias instancias no repiten ids. Los cambios aún no
+ * volcados solo los ve la instancia que los tiene: con varias instancias el balanceador debe
+ * mantener cada sesión en la misma (afinidad por sessionId).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.carrito.store", havingValue = "memoria", matchIfMissing = true)
+public class MemoriaCarritoStore implements CarritoStore {
+
+    public enum Durabilidad {
+        DIFERIDA,   // se vuelca a la tabla cada app.carrito.volcado-ms y al apagar
+        NINGUNA     // solo memoria: se pierde al reiniciar o tras la inactividad
+    }
+
+    private static final int MAX_INTENTOS = 10;
+
+    private record Clave(String sessionId, Integer tiendaId) {
+    }
+
+    // item == null: borrar la fila
+    private record Cambio(Clave clave, CarritoItem item) {
+    }
+
+    private static final class Carro {
+        final Map<Integer, CarritoItem> items = new LinkedHashMap<>();
+        long ultimoAcceso = System.currentTimeMillis();
+        boolean descartado;
+    }
+
+    private final CarritoRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    // Aparte de la transacción de quien llama: si esa hace rollback, el bloque ya tomado no debe volver
+    private final TransactionTemplate reservaIds;
+    private final Durabilidad durabilidad;
+    private final int loteMax;
+    private final int bloqueIds;
+    private final long inactividadMillis;
+
+    private final ConcurrentHashMap<Clave, Carro> carros = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Clave> clavePorId = new ConcurrentHashMap<>();
+    // Último estado de cada id aún no escrito en la tabla
+    private final ConcurrentHashMap<Integer, Cambio> pendientes = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> fallos = new HashMap<>();
+
+    // Bloque de ids reservado: [siguienteId, finBloque)
+    private final Object bloque = new Object();
+    private int siguienteId;
+    private int finBloque;
+
+    public MemoriaCarritoStore(CarritoRepository repository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.carrito.durabilidad:DIFERIDA}") Durabilidad durabilidad,
+                               @Value("${app.carrito.lote-max:500}") int loteMax,
+                               @Value("${app.carrito.bloque-ids:100}") int bloqueIds,
+                               @Value("${app.carrito.inactividad-minutos:120}") long inactividadMinutos) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reservaIds = new TransactionTemplate(transactionManager);
+        this.reservaIds.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.durabilidad = durabilidad;
+        this.loteMax = loteMax;
+        this.bloqueIds = bloqueIds;
+        this.inactividadMillis = inactividadMinutos * 60_000;
+    }
+
+    // ======================== LECTURA ========================
+
+    @Override
+    public List<CarritoItem> listar(String sessionId, Integer tiendaId) {
+        return conCarro(new Clave(sessionId, tiendaId), c -> List.copyOf(c.items.values()));
+    }
+
+    @Override
+    public Optional<CarritoItem> buscar(Integer id) {
+        return claveDe(id).flatMap(clave -> conCarro(clave, c -> Optional.ofNullable(c.items.get(id))));
+    }
+
+    // ======================== ESCRITURA ========================
+
+    @Override
+    public CarritoItem agregar(String sessionId, Integer tiendaId, Integer varianteId, int cantidad) {
+        Clave clave = new Clave(sessionId, tiendaId);
+        return conCarro(clave, c -> {
+            CarritoItem item = new CarritoItem(siguienteId(), sessionId, tiendaId, varianteId, cantidad);
+            c.items.put(item.id(), item);
+            clavePorId.put(item.id(), clave);
+            marcar(item.id(), new Cambio(clave, item));
+            return item;
+        });
+    }
+
+    @Override
+    public CarritoItem actualizarCantidad(Integer id, int cantidad) {
+        Clave clave = claveDe(id)
+                .orElseThrow(() -> new IllegalArgumentException("Carrito no encontrado con ID: " + id));
+        return conCarro(clave, c -> {
+            CarritoItem actual = c.items.get(id);
+            if (actual == null) {
+                throw new IllegalArgumentException("Carrito no encontrado con ID: " + id);
+            }
+            CarritoItem nuevo = actual.conCantidad(cantidad);
+            c.items.put(id, nuevo);
+            marcar(id, new Cambio(clave, nuevo));
+            return nuevo;
+        });
+    }
+
+    @Override
+    public Optional<CarritoItem> eliminar(Integer id) {
+        return claveDe(id).flatMap(clave -> conCarro(clave, c -> {
+            CarritoItem item = c.items.remove(id);
+            if (item != null) {
+                clavePorId.remove(id, clave);
+                marcar(id, new Cambio(clave, null));
+            }
+            return Optional.ofNullable(item);
+        }));
+    }
+
+    @Override
+    public List<CarritoItem> vaciar(String sessionId, Integer tiendaId) {
+        Clave clave = new Clave(sessionId, tiendaId);
+        return conCarro(clave, c -> {
+            List<CarritoItem> eliminados = List.copyOf(c.items.values());
+            c.items.clear();
+            for (CarritoItem item : eliminados) {
+                clavePorId.remove(item.id(), clave);
+                marcar(item.id(), new Cambio(clave, null));
+            }
+            return eliminados;
+        });
+    }
+
+    @Override
+    public List<CarritoItem> aplicar(String sessionId, Integer tiendaId, Map<Integer, Integer> altas,
+                                     Map<Integer, Integer> cambios, Set<Integer> bajas) {
+        Clave clave = new Clave(sessionId, tiendaId);
+        return conCarro(clave, c -> {
+            for (Integer id : bajas) {
+                if (c.items.remove(id) != null) {
+                    clavePorId.remove(id, clave);
+                    marcar(id, new Cambio(clave, null));
+                }
+            }
+            cambios.forEach((id, cantidad) -> {
+                CarritoItem actual = c.items.get(id);
+                if (actual != null) {
+                    CarritoItem nuevo = actual.conCantidad(cantidad);
+                    c.items.put(id, nuevo);
+                    marcar(id, new Cambio(clave, nuevo));
+                }
+            });
+            List<CarritoItem> nuevos = new ArrayList<>(altas.size());
+            altas.forEach((varianteId, cantidad) -> {
+                CarritoItem item = new CarritoItem(siguienteId(), sessionId, tiendaId, varianteId, cantidad);
+                c.items.put(item.id(), item);
+                clavePorId.put(item.id(), clave);
+                marcar(item.id(), new Cambio(clave, item));
+                nuevos.add(item);
+            });
+            return nuevos;
+        });
+    }
+
+    // ======================== VOLCADO ========================
+
+    @Scheduled(fixedDelayString = "${app.carrito.volcado-ms:5000}")
+    public synchronized void volcar() {
+        if (!pendientes.isEmpty()) {
+            Map<Integer, Cambio> lote = new HashMap<>(pendientes);
+            try {
+                transactionTemplate.executeWithoutResult(s -> escribir(lote));
+                confirmar(lote);
+            } catch (RuntimeException e) {
+                log.warn("Volcado de {} cambios de carrito falló, se reintenta línea por línea: {}",
+                        lote.size(), e.getMessage());
+                volcarUnoPorUno(lote);
+            }
+        }
+        descartarInactivos();
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        volcar();
+    }
+
+    private void escribir(Map<Integer, Cambio> lote) {
+        List<CarritoItem> guardar = new ArrayList<>();
+        List<Integer> borrar = new ArrayList<>();
+        lote.forEach((id, cambio) -> {
+            if (cambio.item() != null) guardar.add(cambio.item());
+            else borrar.add(id);
+        });
+        for (int i = 0; i < guardar.size(); i += loteMax) {
+            repository.guardarTodos(guardar.subList(i, Math.min(i + loteMax, guardar.size())));
+        }
+        for (int i = 0; i < borrar.size(); i += loteMax) {
+            repository.eliminarPorIds(borrar.subList(i, Math.min(i + loteMax, borrar.size())));
+        }
+    }
+
+    // Solo se quita de pendientes si no cambió mientras se escribía
+    private void confirmar(Map<Integer, Cambio> lote) {
+        lote.forEach((id, cambio) -> {
+            pendientes.remove(id, cambio);
+            fallos.remove(id);
+        });
+    }
+
+    // Una línea inválida (ej. variante borrada) no debe frenar el resto del lote
+    private void volcarUnoPorUno(Map<Integer, Cambio> lote) {
+        for (Map.Entry<Integer, Cambio> e : lote.entrySet()) {
+            Map<Integer, Cambio> uno = Map.of(e.getKey(), e.getValue());
+            try {
+                transactionTemplate.executeWithoutResult(s -> escribir(uno));
+                confirmar(uno);
+            } catch (RuntimeException ex) {
+                int intentos = fallos.merge(e.getKey(), 1, Integer::sum);
+                if (intentos >= MAX_INTENTOS) {
+                    log.error("Se descarta el cambio del carrito {} tras {} intentos: {}",
+                            e.getKey(), intentos, ex.getMessage());
+                    confirmar(uno);
+                }
+            }
+        }
+    }
+
+    // Los carritos sin uso y ya volcados salen de memoria; si vuelven, se leen de la tabla
+    private void descartarInactivos() {
+        long limite = System.currentTimeMillis() - inactividadMillis;
+        Set<Clave> conPendientes = new HashSet<>();
+        pendientes.values().forEach(c -> conPendientes.add(c.clave()));
+
+        carros.forEach((clave, carro) -> {
+            synchronized (carro) {
+                if (carro.ultimoAcceso < limite && !conPendientes.contains(clave)) {
+                    carro.descartado = true;
+                    carros.remove(clave, carro);
+                    carro.items.keySet().forEach(id -> clavePorId.remove(id, clave));
+                }
+            }
+        });
+    }
+
+    // ======================== AUXILIARES ========================
+
+    private <T> T conCarro(Clave clave, Function<Carro, T> accion) {
+        while (true) {
+            Carro carro = carro(clave);
+            synchronized (carro) {
+                if (carro.descartado) continue;   // lo sacó el barrido justo ahora: se vuelve a cargar
+                carro.ultimoAcceso = System.currentTimeMillis();
+                return accion.apply(carro);
+            }
+        }
+    }
+
+    private Carro carro(Clave clave) {
+        Carro carro = carros.get(clave);
+        if (carro != null) return carro;
+
+        Carro cargado = cargar(clave);
+        Carro previo = carros.putIfAbsent(clave, cargado);
+        if (previo != null) return previo;
+        cargado.items.keySet().forEach(id -> clavePorId.put(id, clave));
+        return cargado;
+    }
+
+    private Carro cargar(Clave clave) {
+        Carro carro = new Carro();
+        if (durabilidad == Durabilidad.NINGUNA) return carro;
+        List<CarritoItem> items = transactionTemplate.execute(s ->
+                repository.findItemsBySessionIdAndTiendaId(clave.sessionId(), clave.tiendaId()).stream()
+                        .map(JpaCarritoStore::toItem)
+                        .toList());
+        items.forEach(i -> carro.items.put(i.id(), i));
+        return carro;
+    }
+
+    private Optional<Clave> claveDe(Integer id) {
+        Clave clave = clavePorId.get(id);
+        if (clave != null || durabilidad == Durabilidad.NINGUNA) return Optional.ofNullable(clave);
+        return transactionTemplate.execute(s -> repository.findById(id)
+                .map(c -> new Clave(c.getSessionId(), c.getTienda().getId())));
+    }
+
+    private void marcar(Integer id, Cambio cambio) {
+        if (durabilidad != Durabilidad.NINGUNA) {
+            pendientes.put(id, cambio);
+        }
+    }
+
+    // Cuando se acaba el bloque se reserva otro; los ids sin usar de un bloque se pierden al reiniciar
+    private int siguienteId() {
+        synchronized (bloque) {
+            if (siguienteId >= finBloque) {
+                siguienteId = reservaIds.execute(s -> repository.reservarIds(bloqueIds));
+                finBloque = siguienteId + bloqueIds;
+            }
+            return siguienteId++;
+        }
+    }
+}
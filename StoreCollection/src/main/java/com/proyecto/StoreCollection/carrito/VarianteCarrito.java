@@ -0,0 +1,14 @@
+package com.proyecto.StoreCollection.carrito;
+
+import com.proyecto.StoreCollection.dto.response.AtributoResponse;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Lo que el carrito necesita de una variante, ya resuelto (sin relaciones lazy por recorrer).
+ * Se guarda en VarianteCarritoCache: atributos es inmutable.
+ */
+public record VarianteCarrito(Integer id, Integer tiendaId, Integer productoId, String sku, BigDecimal precio,
+                              int stock, String imagenUrl, String nombreProducto, List<AtributoResponse> atributos) {
+}
@@ -0,0 +1,91 @@
+package com.proyecto.StoreCollection.carrito;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.cache.TtlCache;
+import com.proyecto.StoreCollection.dto.response.AtributoResponse;
+import com.proyecto.StoreCollection.event.CatalogoModificadoEvent;
+import com.proyecto.StoreCollection.repository.ProductoVarianteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Datos de las variantes que usa el carrito (precio, stock, tienda, atributos) por varianteId.
+ * Los clics del carrito se resuelven desde aquí; solo las variantes que faltan van a la base,
+ * todas en una consulta. Se invalida por producto o tienda con CatalogoModificadoEvent
+ * (que también se publica cuando una boleta descuenta o devuelve stock).
+ */
+@Component
+public class VarianteCarritoCache {
+
+    private final ProductoVarianteRepository varianteRepository;
+    private final TtlCache<Integer, VarianteCarrito> cache;
+
+    public VarianteCarritoCache(ProductoVarianteRepository varianteRepository,
+                                CacheRegistry cacheRegistry,
+                                @Value("${app.cache.variante-carrito.max-size:20000}") int maxSize,
+                                @Value("${app.cache.variante-carrito.ttl-seconds:300}") long ttlSeconds) {
+        this.varianteRepository = varianteRepository;
+        this.cache = cacheRegistry.crear("variante-carrito", maxSize, ttlSeconds * 1000);
+    }
+
+    /** Las variantes que existen, por id; las que no existen no aparecen en el mapa. */
+    public Map<Integer, VarianteCarrito> get(Collection<Integer> varianteIds) {
+        if (varianteIds.isEmpty()) return Map.of();
+        return cache.getAll(new LinkedHashSet<>(varianteIds), this::cargar);
+    }
+
+    public VarianteCarrito get(Integer varianteId) {
+        return get(List.of(varianteId)).get(varianteId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        if (event.afectaTodaLaTienda()) {
+            if (event.tiendaId() != null) cache.evictIf(v -> event.tiendaId().equals(v.tiendaId()));
+        } else {
+            cache.evictIf(v -> event.productoIds().contains(v.productoId()));
+        }
+    }
+
+    // Una sola consulta (proyección) para todas las variantes, con producto y atributos
+    private Map<Integer, VarianteCarrito> cargar(Set<Integer> varianteIds) {
+        Map<Integer, VarianteCarrito> variantes = new LinkedHashMap<>();
+        Map<Integer, List<AtributoResponse>> atributos = new LinkedHashMap<>();
+        for (Object[] row : varianteRepository.findResumenCarritoByIdIn(varianteIds)) {
+            Integer id = (Integer) row[0];
+            variantes.computeIfAbsent(id, k -> new VarianteCarrito(
+                    k,
+                    (Integer) row[1],
+                    (Integer) row[11],
+                    (String) row[2],
+                    (BigDecimal) row[3],
+                    row[4] != null ? (Integer) row[4] : 0,
+                    (String) row[5],
+                    (String) row[6],
+                    List.of()));
+
+            List<AtributoResponse> lista = atributos.computeIfAbsent(id, k -> new ArrayList<>());
+            if (row[7] != null) {
+                AtributoResponse attr = new AtributoResponse();
+                attr.setId((Integer) row[7]);
+                attr.setNombre(row[8] != null ? (String) row[8] : "");
+                attr.setValor((String) row[9]);
+                attr.setTiendaId((Integer) row[10]);
+                lista.add(attr);
+            }
+        }
+        variantes.replaceAll((id, v) -> new VarianteCarrito(v.id(), v.tiendaId(), v.productoId(), v.sku(),
+                v.precio(), v.stock(), v.imagenUrl(), v.nombreProducto(), List.copyOf(atributos.get(id))));
+        return variantes;
+    }
+}
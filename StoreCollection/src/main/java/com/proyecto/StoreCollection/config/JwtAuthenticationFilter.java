@@ -1,21 +1,28 @@
 package com.proyecto.StoreCollection.config;
 
+import com.proyecto.StoreCollection.entity.Usuario;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.Pattern;
 
 @Component
@@ -24,7 +31,12 @@ import java.util.regex.Pattern;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;  // Este debe retornar isEnabled correctamente
+    private final PrincipalCache principalCache;
+    private final TokenRevocationRegistry revocationRegistry;
+
+    // true = el rol se toma del token firmado, sin consultar usuario (ni caché) por request
+    @Value("${jwt.claims-trusted:false}")
+    private boolean claimsTrusted;
 
     private static final Pattern[] PUBLIC_PATHS = {
             Pattern.compile("^/api/auth/(login|register)$"),
@@ -71,7 +83,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                String rolToken = claimsTrusted ? jwtService.extractRol(jwt) : null;
+                UserDetails userDetails;
+                if (rolToken != null) {
+                    userDetails = toUserDetails(username, Usuario.Rol.valueOf(rolToken), true);
+                } else {
+                    // Sale de la caché compartida con TenantFilter (sin ir a la BD en cada request)
+                    PrincipalInfo principal = principalCache.get(username)
+                            .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+                    userDetails = toUserDetails(principal.email(), principal.rol(), principal.activo());
+                }
 
                 // 1. Token válido?
                 if (!jwtService.isTokenValid(jwt, userDetails)) {
@@ -80,7 +101,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     return;
                 }
 
-                // 2. Usuario activo? (esto depende de que tu UserDetailsService retorne isEnabled = activo)
+                // 1.1 Token revocado? (desactivación, cambio de rol, etc.)
+                if (revocationRegistry.isRevocado(jwtService.extractUserId(jwt), jwtService.extractIssuedAt(jwt))) {
+                    log.warn("Token revocado para usuario: {}", username);
+                    sendErrorResponse(response, "Sesión revocada. Inicia sesión nuevamente.");
+                    return;
+                }
+
+                // 2. Usuario activo?
                 if (!userDetails.isEnabled()) {
                     log.warn("Intento de acceso con usuario inactivo: {}", username);
                     sendErrorResponse(response, "Cuenta desactivada/inactiva. Contacta al administrador.");
@@ -107,6 +135,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Mismo formato que UserDetailsServiceImpl, pero sin password: aquí no se valida
+    private UserDetails toUserDetails(String email, Usuario.Rol rol, boolean activo) {
+        List<GrantedAuthority> authorities = rol == null
+                ? Collections.emptyList()
+                : List.of(new SimpleGrantedAuthority("ROLE_" + rol.name()));
+
+        return User.withUsername(email)
+                .password("")
+                .disabled(!activo)
+                .authorities(authorities)
+                .build();
+    }
+
     private void sendErrorResponse(HttpServletResponse response, String message) throws IOException {
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
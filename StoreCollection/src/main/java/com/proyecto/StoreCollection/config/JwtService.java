@@ -2,11 +2,14 @@
 
 package com.proyecto.StoreCollection.config;
 
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.cache.TtlCache;
 import com.proyecto.StoreCollection.entity.Usuario;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
@@ -15,6 +18,9 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -23,22 +29,32 @@ import java.util.function.Function;
 
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class JwtService {
 
+    private final CacheRegistry cacheRegistry;
+
     @Value("${JWT_SECRET}")
     private String secret;
 
     @Value("${jwt.expiration:86400000}") // 24h por defecto
     private long expiration;
 
+    @Value("${app.cache.jwt-claims.max-size:10000}")
+    private int claimsCacheMaxSize;
+
     private SecretKey key;
 
+    // Claims ya verificados, por hash del token, hasta su exp
+    private TtlCache<String, Claims> claimsCache;
+
     @PostConstruct
     public void init() {
         if (secret == null || secret.isBlank()) {
             throw new IllegalStateException("JWT_SECRET no está configurado");
         }
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.claimsCache = cacheRegistry.crear("jwt-claims", claimsCacheMaxSize, expiration);
         log.info("JwtService inicializado correctamente (secret: {} caracteres)", secret.length());
     }
 
@@ -88,6 +104,10 @@ public class JwtService {
         return extractClaim(token, claims -> claims.get("roles", List.class));
     }
 
+    public Date extractIssuedAt(String token) {
+        return extractClaim(token, Claims::getIssuedAt);
+    }
+
     // Métodos genéricos
     public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
@@ -98,12 +118,33 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
+    // La firma se verifica una sola vez por token; los inválidos/expirados no se cachean
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
+        String digest = sha256(token);
+        Claims claims = claimsCache.get(digest);
+        if (claims != null) {
+            return claims;
+        }
+
+        claims = Jwts.parserBuilder()
                 .setSigningKey(key)
                 .build()
                 .parseClaimsJws(token)
                 .getBody();
+
+        if (claims.getExpiration() != null) {
+            claimsCache.put(digest, claims, claims.getExpiration().getTime());
+        }
+        return claims;
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
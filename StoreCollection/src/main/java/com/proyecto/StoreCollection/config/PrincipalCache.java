@@ -0,0 +1,57 @@
+package com.proyecto.StoreCollection.config;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.cache.TtlCache;
+import com.proyecto.StoreCollection.event.TiendaModificadaEvent;
+import com.proyecto.StoreCollection.event.UsuarioModificadoEvent;
+import com.proyecto.StoreCollection.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Caché email → PrincipalInfo compartida por JwtAuthenticationFilter y TenantFilter.
+ * Una sola consulta (usuario + primera tienda) reemplaza a loadUserByUsername
+ * y findFirstByUserEmail en cada request autenticado.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UsuarioRepository usuarioRepository;
+    private final TtlCache<String, PrincipalInfo> cache;
+
+    public PrincipalCache(UsuarioRepository usuarioRepository,
+                          CacheRegistry cacheRegistry,
+                          @Value("${app.cache.principal.max-size:5000}") int maxSize,
+                          @Value("${app.cache.principal.ttl-seconds:300}") long ttlSeconds) {
+        this.usuarioRepository = usuarioRepository;
+        this.cache = cacheRegistry.crear("principal", maxSize, ttlSeconds * 1000);
+    }
+
+    public Optional<PrincipalInfo> get(String email) {
+        if (email == null || email.isBlank()) return Optional.empty();
+        return Optional.ofNullable(cache.get(email, e ->
+                usuarioRepository.findPrincipalInfoByEmail(e).stream().findFirst().orElse(null)));
+    }
+
+    public void evictUsuario(Integer usuarioId) {
+        if (usuarioId == null) return;
+        cache.evictIf(p -> usuarioId.equals(p.usuarioId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioModificado(UsuarioModificadoEvent event) {
+        evictUsuario(event.usuarioId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTiendaModificada(TiendaModificadaEvent event) {
+        Integer tiendaId = event.tiendaId();
+        Integer usuarioId = event.usuarioId();
+        // Por usuario: cubre la creación de su primera tienda
+        cache.evictIf(p -> (tiendaId != null && tiendaId.equals(p.tiendaId()))
+                || (usuarioId != null && usuarioId.equals(p.usuarioId())));
+    }
+}
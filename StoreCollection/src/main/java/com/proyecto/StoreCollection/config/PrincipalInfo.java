@@ -0,0 +1,19 @@
+package com.proyecto.StoreCollection.config;
+
+import com.proyecto.StoreCollection.entity.Usuario;
+
+/**
+ * Lo que los filtros necesitan saber del usuario autenticado:
+ * rol, si está activo y su tienda principal.
+ */
+public record PrincipalInfo(Integer usuarioId,
+                            String email,
+                            Usuario.Rol rol,
+                            boolean activo,
+                            Integer tiendaId,
+                            Boolean tiendaActiva) {
+
+    public boolean tieneTiendaActiva() {
+        return tiendaId != null && Boolean.TRUE.equals(tiendaActiva);
+    }
+}
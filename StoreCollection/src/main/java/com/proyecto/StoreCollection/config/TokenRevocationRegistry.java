@@ -0,0 +1,113 @@
+package com.proyecto.StoreCollection.config;
+
+import com.proyecto.StoreCollection.entity.TokenRevocacion;
+import com.proyecto.StoreCollection.event.UsuarioModificadoEvent;
+import com.proyecto.StoreCollection.event.UsuarioModificadoEvent.Revocacion;
+import com.proyecto.StoreCollection.repository.TokenRevocacionRepository;
+import com.proyecto.StoreCollection.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro en memoria de usuarios cuyos tokens ya no deben aceptarse.
+ * Guarda userId → instante (epoch millis) antes del cual los tokens emitidos son inválidos.
+ * Long.MAX_VALUE = usuario desactivado o eliminado (ningún token vale).
+ *
+ * Es lo que permite confiar en los claims del JWT (jwt.claims-trusted) sin consultar
+ * la BD en cada request. Cada revocación se guarda en token_revocacion en la misma transacción
+ * que el cambio del usuario; este nodo la aplica después del commit (un rollback no revoca nada),
+ * los demás al leer la tabla cada jwt.revocaciones.refresco-ms, y todos la cargan al arrancar.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationRegistry {
+
+    private static final long BLOQUEADO = Long.MAX_VALUE;
+
+    // Las escrituras de otros nodos pueden llegar con algo de atraso respecto de su actualizado_en
+    private static final Duration SOLAPE = Duration.ofMinutes(1);
+
+    private final UsuarioRepository usuarioRepository;
+    private final TokenRevocacionRepository revocacionRepository;
+    private final Map<Integer, Long> revocadosAntesDe = new ConcurrentHashMap<>();
+
+    @Value("${jwt.expiration}")
+    private long expiracionMillis;
+
+    private volatile LocalDateTime ultimaLectura;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        LocalDateTime inicio = ahoraUtc();
+        List<Integer> inactivos = usuarioRepository.findIdsInactivos();
+        inactivos.forEach(id -> revocadosAntesDe.put(id, BLOQUEADO));
+
+        // Una revocación más vieja que la duración del token ya no puede rechazar nada
+        List<TokenRevocacion> vigentes = revocacionRepository.findVigentes(inicio.minus(Duration.ofMillis(expiracionMillis)));
+        vigentes.forEach(this::aplicar);
+        ultimaLectura = inicio;
+        log.info("Registro de revocación inicializado con {} usuarios inactivos y {} revocaciones",
+                inactivos.size(), vigentes.size());
+    }
+
+    // Revocaciones hechas en otros nodos
+    @Scheduled(fixedDelayString = "${jwt.revocaciones.refresco-ms:15000}",
+            initialDelayString = "${jwt.revocaciones.refresco-ms:15000}")
+    public void refrescar() {
+        LocalDateTime desde = ultimaLectura;
+        if (desde == null) return;   // todavía no se cargó
+        LocalDateTime inicio = ahoraUtc();
+        revocacionRepository.findByActualizadoEnGreaterThanEqual(desde.minus(SOLAPE)).forEach(this::aplicar);
+        ultimaLectura = inicio;
+    }
+
+    // Dentro de la transacción del cambio: la revocación se confirma junto con él
+    @EventListener
+    public void guardar(UsuarioModificadoEvent event) {
+        if (event.usuarioId() == null || event.revocacion() == Revocacion.NINGUNA) return;
+        LocalDateTime ahora = ahoraUtc();
+        // El iat del JWT tiene precisión de segundos: un token emitido en el mismo segundo sigue valiendo
+        revocacionRepository.save(new TokenRevocacion(event.usuarioId(),
+                event.revocacion() == Revocacion.BLOQUEAR, ahora.truncatedTo(ChronoUnit.SECONDS), ahora));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioModificado(UsuarioModificadoEvent event) {
+        if (event.usuarioId() == null || event.revocacion() == Revocacion.NINGUNA) return;
+        revocacionRepository.findById(event.usuarioId()).ifPresent(this::aplicar);
+    }
+
+    private void aplicar(TokenRevocacion revocacion) {
+        revocadosAntesDe.put(revocacion.getUsuarioId(), revocacion.isBloqueado()
+                ? BLOQUEADO
+                : revocacion.getValidosDesde().toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    public boolean isRevocado(Integer usuarioId, Date emitidoEn) {
+        if (usuarioId == null) return false;
+        Long limite = revocadosAntesDe.get(usuarioId);
+        if (limite == null) return false;
+        if (limite == BLOQUEADO || emitidoEn == null) return true;
+        return emitidoEn.getTime() < limite;
+    }
+
+    private static LocalDateTime ahoraUtc() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+}
@@ -3,7 +3,8 @@ package com.proyecto.StoreCollection.controller;
 import com.proyecto.StoreCollection.dto.request.BoletaAdminRequest;
 import com.proyecto.StoreCollection.dto.response.BoletaResponse;
 import com.proyecto.StoreCollection.service.BoletaService;
-import com.proyecto.StoreCollection.service.PdfService;
+import com.proyecto.StoreCollection.service.FacturaPdfGenerator;
+import com.proyecto.StoreCollection.service.FacturaZipExporter;
 import com.proyecto.StoreCollection.tenant.TenantContext;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -14,12 +15,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.*;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -28,7 +33,8 @@ import java.util.Map;
 @RequestMapping("/api/owner/boletas")
 public class BoletaController {
     private final BoletaService service;
-    private final PdfService pdfService;
+    private final FacturaPdfGenerator facturaPdfGenerator;
+    private final FacturaZipExporter facturaZipExporter;
     @GetMapping("/admin-list")
     public ResponseEntity<Page<BoletaResponse>> listarBoletas(
             @RequestParam(defaultValue = "0") int page,
@@ -117,7 +123,9 @@ public class BoletaController {
         }
 
         try {
-            byte[] pdf = pdfService.generarFacturaPdf(boleta);
+            // Normalmente ya está pre-generado; si no, se genera aquí (y queda en caché) antes de
+            // responder: un error de generación es un 500 y no un PDF cortado con 200
+            byte[] pdf = facturaPdfGenerator.obtener(boleta);
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
@@ -128,10 +136,33 @@ public class BoletaController {
 
             return new ResponseEntity<>(pdf, headers, HttpStatus.OK);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Error generando la factura PDF de la boleta {}", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+    // Todas las facturas de un rango (ej. un mes) en un solo ZIP. El ADMIN indica la tienda.
+    @GetMapping("/facturas-zip")
+    public ResponseEntity<?> descargarFacturasZip(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Integer tiendaId) {
+
+        List<BoletaResponse> boletas;
+        try {
+            boletas = service.findAtendidasParaExportacion(tiendaId, desde, hasta);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename("facturas_" + desde + "_" + hasta + ".zip")
+                .build());
+
+        StreamingResponseBody cuerpo = out -> facturaZipExporter.escribirZip(boletas, out);
+        return new ResponseEntity<>(cuerpo, headers, HttpStatus.OK);
+    }
     // Método auxiliar para crear Pageable
     private Pageable crearPageable(int page, int size, String sort) {
         String[] sortParts = sort.split(",");
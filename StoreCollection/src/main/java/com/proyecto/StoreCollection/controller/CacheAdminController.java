@@ -0,0 +1,27 @@
+package com.proyecto.StoreCollection.controller;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@Tag(name = "Caché", description = "Métricas de las cachés en memoria")
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+public class CacheAdminController {
+
+    private final CacheRegistry cacheRegistry;
+
+    @Operation(summary = "Hits, misses y evictions de cada caché")
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> stats() {
+        return ResponseEntity.ok(cacheRegistry.stats());
+    }
+}
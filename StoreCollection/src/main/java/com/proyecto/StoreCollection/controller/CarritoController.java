@@ -3,6 +3,7 @@ package com.proyecto.StoreCollection.controller;
 
 import com.proyecto.StoreCollection.Exceptions.MissingEmailConfigException;
 import com.proyecto.StoreCollection.dto.request.CarritoRequest;
+import com.proyecto.StoreCollection.dto.request.CarritoSincronizarRequest;
 import com.proyecto.StoreCollection.dto.request.BoletaRequest;
 import com.proyecto.StoreCollection.dto.response.CarritoResponse;
 import com.proyecto.StoreCollection.dto.response.BoletaResponse;
@@ -55,6 +56,15 @@ public class CarritoController {
         return ResponseEntity.ok(service.actualizar(id, request));  // ← ahora usa actualizar()
     }
 
+    // Reemplaza el carrito completo de la sesión en un solo request (altas, cambios y bajas)
+    @PutMapping("/session/{sessionId}")
+    public ResponseEntity<List<CarritoResponse>> sincronizar(
+            @PathVariable String sessionId,
+            @RequestParam @Min(1) Integer tiendaId,
+            @RequestBody @Valid CarritoSincronizarRequest request) {
+        return ResponseEntity.ok(service.sincronizar(sessionId, tiendaId, request));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminarItem(@PathVariable Integer id) {
         service.deleteById(id);
@@ -1,15 +1,20 @@
 package com.proyecto.StoreCollection.controller;
 
 import com.proyecto.StoreCollection.dto.special.BoletaDashboardDto;
+import com.proyecto.StoreCollection.dto.special.DashboardResumenDto;
 import com.proyecto.StoreCollection.dto.special.PlanDashboardDto;
 import com.proyecto.StoreCollection.dto.special.PlanUsageDto;
 import com.proyecto.StoreCollection.dto.special.TiendaDashboardDto;
+import com.proyecto.StoreCollection.dto.special.VentaPeriodoDto;
 import com.proyecto.StoreCollection.entity.Boleta;
 import com.proyecto.StoreCollection.entity.Plan;
 import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.entity.VentaRollup;
 import com.proyecto.StoreCollection.repository.*;
+import com.proyecto.StoreCollection.service.DashboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.*;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
@@ -41,6 +47,9 @@ public class DashboardController {
     @Autowired
     private ProductoVarianteRepository productoVarianteRepository;
 
+    @Autowired
+    private DashboardService dashboardService;
+
     @GetMapping("/overview")
     public ResponseEntity<Map<String, Object>> getOverview() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -48,56 +57,58 @@ public class DashboardController {
                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
         String userEmail = auth.getName();
 
-        Map<String, Object> stats = new HashMap<>();
-
+        DashboardResumenDto resumen;
         if (esAdmin) {
-            long totalTiendas = tiendaRepository.count();
-            long totalPlanesActivos = planRepository.countByActivoTrue();
-            long totalBoletas = boletaRepository.count();
-
-            // Solo boletas ATENDIDAS - USAR EL ENUM
-            BigDecimal revenueTotal = boletaRepository.sumTotalByEstado(
-                    Boleta.EstadoBoleta.ATENDIDA
-            );
-
-            stats.put("totalTiendas", totalTiendas);
-            stats.put("totalPlanesActivos", totalPlanesActivos);
-            stats.put("totalBoletas", totalBoletas);
-            stats.put("revenueTotal", revenueTotal);
+            resumen = dashboardService.resumenGlobal();
         } else {
-            List<Tienda> misTiendas = tiendaRepository.findByUserEmailWithPlan(userEmail);
-            if (misTiendas.isEmpty()) {
+            Optional<DashboardResumenDto> propio = dashboardService.resumenDeUsuario(userEmail);
+            if (propio.isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("error", "No tienes tiendas asociadas"));
             }
+            resumen = propio.get();
+        }
 
-            long totalTiendas = misTiendas.size();
-
-            long totalPlanesActivos = misTiendas.stream()
-                    .map(Tienda::getPlan)
-                    .filter(Plan::getActivo)
-                    .distinct()
-                    .count();
-
-            List<Integer> misTiendaIds = misTiendas.stream()
-                    .map(Tienda::getId)
-                    .collect(Collectors.toList());
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalTiendas", resumen.totalTiendas());
+        stats.put("totalPlanesActivos", resumen.totalPlanesActivos());
+        stats.put("totalBoletas", resumen.totalBoletas());
+        stats.put("revenueTotal", resumen.revenueTotal());
+        stats.put("rol", esAdmin ? "ADMIN" : "OWNER");
+        return ResponseEntity.ok(stats);
+    }
 
-            long totalBoletas = boletaRepository.countByTiendaIdIn(misTiendaIds);
+    // Serie de ventas por día / semana / mes (de venta_rollup). El ADMIN puede filtrar por tienda.
+    @GetMapping("/ventas")
+    public ResponseEntity<?> getVentas(
+            @RequestParam(defaultValue = "DIA") VentaRollup.Periodo periodo,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "ATENDIDA") Boleta.EstadoBoleta estado,
+            @RequestParam(required = false) Integer tiendaId) {
 
-            // Solo boletas ATENDIDAS de MIS tiendas - USAR EL ENUM
-            BigDecimal revenueTotal = boletaRepository.sumTotalByEstadoAndTiendaIdIn(
-                    Boleta.EstadoBoleta.ATENDIDA,
-                    misTiendaIds
-            );
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean esAdmin = auth.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
 
-            stats.put("totalTiendas", totalTiendas);
-            stats.put("totalPlanesActivos", totalPlanesActivos);
-            stats.put("totalBoletas", totalBoletas);
-            stats.put("revenueTotal", revenueTotal);
+        List<Integer> tiendaIds;
+        if (esAdmin) {
+            tiendaIds = tiendaId != null ? List.of(tiendaId) : null;
+        } else {
+            tiendaIds = tiendaRepository.findByUserEmail(auth.getName()).stream()
+                    .map(Tienda::getId)
+                    .filter(id -> tiendaId == null || id.equals(tiendaId))
+                    .toList();
+            if (tiendaIds.isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "No tienes tiendas asociadas"));
+            }
         }
 
-        stats.put("rol", esAdmin ? "ADMIN" : "OWNER");
-        return ResponseEntity.ok(stats);
+        try {
+            List<VentaPeriodoDto> serie = dashboardService.serieVentas(tiendaIds, periodo, estado, desde, hasta);
+            return ResponseEntity.ok(serie);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/usage")
@@ -353,23 +364,11 @@ public class DashboardController {
                     .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
             String userEmail = auth.getName();
 
-            List<Boleta> boletas;
-
-            if (esAdmin) {
-                boletas = boletaRepository.findAll();
-            } else {
-                List<Tienda> misTiendas = tiendaRepository.findByUserEmail(userEmail);
-                List<Integer> misTiendaIds = misTiendas.stream().map(Tienda::getId).collect(Collectors.toList());
-                boletas = boletaRepository.findAll().stream()
-                        .filter(b -> misTiendaIds.contains(b.getTienda().getId()))
-                        .toList();
-            }
-
-            Map<String, BigDecimal> revenuePorEstado = boletas.stream()
-                    .collect(Collectors.groupingBy(
-                            b -> b.getEstado().name(),
-                            Collectors.mapping(Boleta::getTotal, Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))
-                    ));
+            Map<String, BigDecimal> revenuePorEstado = esAdmin
+                    ? dashboardService.resumenGlobal().revenuePorEstado()
+                    : dashboardService.resumenDeUsuario(userEmail)
+                            .map(DashboardResumenDto::revenuePorEstado)
+                            .orElse(Map.of());
 
             return ResponseEntity.ok(revenuePorEstado);
         }
@@ -2,12 +2,14 @@
 package com.proyecto.StoreCollection.controller;
 
 import com.proyecto.StoreCollection.dto.request.ProductoRequest;
+import com.proyecto.StoreCollection.dto.response.CatalogoPaginaResponse;
 import com.proyecto.StoreCollection.dto.response.PageResponse;
 import com.proyecto.StoreCollection.dto.response.PlanResponse;
 import com.proyecto.StoreCollection.dto.response.ProductoCardResponse;
 import com.proyecto.StoreCollection.dto.response.ProductoResponse;
 import com.proyecto.StoreCollection.dto.special.ProductoAdminListDTO;
 import com.proyecto.StoreCollection.entity.Producto;
+import com.proyecto.StoreCollection.service.CatalogoCodificado;
 import com.proyecto.StoreCollection.service.ProductoService;
 import com.proyecto.StoreCollection.tenant.TenantContext;
 import jakarta.validation.Valid;
@@ -16,7 +18,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -24,6 +29,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -32,10 +38,48 @@ public class ProductoController {
 
     private final ProductoService service;
 
+    // Bytes ya serializados: con If-None-Match vigente responde 304 sin tocar Jackson ni la BD
     @GetMapping("/api/public/tiendas/{tiendaSlug}/productos")
-    public ResponseEntity<List<ProductoCardResponse>> publicList(@PathVariable String tiendaSlug) {
-        return ResponseEntity.ok(service.findAllForPublicCatalog(tiendaSlug));
+    public ResponseEntity<byte[]> publicList(
+            @PathVariable String tiendaSlug,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        CatalogoCodificado catalogo = service.findCatalogoPublicoCodificado(tiendaSlug);
+
+        if (coincideEtag(ifNoneMatch, catalogo.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(catalogo.etag())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(catalogo.etag())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(CacheControl.noCache());
+
+        if (aceptaGzip(acceptEncoding)) {
+            return respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(catalogo.gzip());
+        }
+        return respuesta.body(catalogo.json());
+    }
+    // Catálogo paginado por cursor; sort = price | price_desc | stock | newest
+    @GetMapping("/api/public/tiendas/{tiendaSlug}/catalogo")
+    public ResponseEntity<CatalogoPaginaResponse> publicCatalogo(
+            @PathVariable String tiendaSlug,
+            @RequestParam(required = false) Integer categoriaId,
+            @RequestParam(required = false) BigDecimal precioMin,
+            @RequestParam(required = false) BigDecimal precioMax,
+            @RequestParam(defaultValue = "stock") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "24") int size) {
+        return ResponseEntity.ok(service.findCatalogoPublicoPaginado(
+                tiendaSlug, categoriaId, precioMin, precioMax, sort, cursor, size));
     }
+
     @GetMapping("/api/public/tiendas/{tiendaSlug}/productos/{productoSlug}")
     public ResponseEntity<ProductoCardResponse> publicDetail(
             @PathVariable String tiendaSlug,
@@ -76,6 +120,27 @@ public class ProductoController {
 
         return ResponseEntity.ok(resultado);
     }
+    private boolean coincideEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) valor = valor.substring(2);
+            if (valor.equals("*") || valor.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String parte : acceptEncoding.toLowerCase().split(",")) {
+            String[] tokens = parte.trim().split(";");
+            if (!tokens[0].trim().equals("gzip")) continue;
+            // "gzip;q=0" significa que no lo acepta
+            return tokens.length < 2 || !tokens[1].replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
     private Pageable crearPageable(int page, int size, String sort) {
         String[] parts = sort.split(",");
         String property = parts[0];
@@ -4,6 +4,7 @@ import com.proyecto.StoreCollection.dto.response.*;
 import com.proyecto.StoreCollection.entity.Plan;
 import com.proyecto.StoreCollection.entity.Tienda;
 import com.proyecto.StoreCollection.repository.TiendaRepository;
+import com.proyecto.StoreCollection.search.TiendaSearchIndex;
 import com.proyecto.StoreCollection.service.TiendaService;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
@@ -20,9 +21,7 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
@@ -30,6 +29,7 @@ public class TiendaController {
 
     private final TiendaService service;
     private final TiendaRepository tiendaRepository;
+    private final TiendaSearchIndex tiendaSearchIndex;
 
     @GetMapping("/api/public/tiendas")
     public ResponseEntity<Page<TiendaResponse>> listarTodasTiendas(
@@ -58,36 +58,8 @@ public class TiendaController {
         Page<TiendaResponse> resultado;
 
         if (search != null && !search.trim().isEmpty()) {
-            String terminoBusqueda = search.trim().toLowerCase();
-
-            // 1. Obtener TODAS las tiendas públicas vigentes (sin paginación)
-            List<TiendaResponse> todasVigentes = service.findAllPublicasActivas(Pageable.unpaged())
-                    .getContent();
-
-            // 2. Filtrar por nombre en TODAS las tiendas
-            List<TiendaResponse> coincidencias = todasVigentes.stream()
-                    .filter(t -> t.getNombre().toLowerCase().contains(terminoBusqueda))
-                    .collect(Collectors.toList());
-
-            // 3. Ordenar según el sort solicitado
-            if (direction == Sort.Direction.ASC) {
-                coincidencias.sort(Comparator.comparing(TiendaResponse::getNombre, String.CASE_INSENSITIVE_ORDER));
-            } else {
-                coincidencias.sort(Comparator.comparing(TiendaResponse::getNombre, String.CASE_INSENSITIVE_ORDER).reversed());
-            }
-
-            // 4. Paginación manual sobre los resultados filtrados
-            long totalCoincidencias = coincidencias.size();
-            int start = (int) pageable.getOffset();
-            int end = Math.min(start + pageable.getPageSize(), coincidencias.size());
-
-            List<TiendaResponse> paginaFiltrada = coincidencias.subList(
-                    Math.min(start, coincidencias.size()),
-                    end
-            );
-
-            resultado = new PageImpl<>(paginaFiltrada, pageable, totalCoincidencias);
-
+            // Índice en memoria: sin ir a la BD en cada tecla
+            resultado = tiendaSearchIndex.buscar(search, pageable, direction == Sort.Direction.DESC);
         } else {
             // Sin búsqueda: paginación normal
             resultado = service.findAllPublicasActivas(pageable);
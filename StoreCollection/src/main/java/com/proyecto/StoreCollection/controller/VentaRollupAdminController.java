@@ -0,0 +1,40 @@
+package com.proyecto.StoreCollection.controller;
+
+import com.proyecto.StoreCollection.service.VentaRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@Tag(name = "Rollup de ventas", description = "Reconstrucción de los acumulados de ventas del dashboard")
+@RestController
+@RequestMapping("/api/admin/rollup")
+@RequiredArgsConstructor
+public class VentaRollupAdminController {
+
+    private final VentaRollupService ventaRollupService;
+
+    @Operation(summary = "Recalcula venta_rollup de todas las tiendas desde las boletas")
+    @PostMapping("/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirTodo() {
+        try {
+            return ResponseEntity.ok(Map.of("tiendas", ventaRollupService.reconstruirTodo()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Recalcula venta_rollup de una tienda")
+    @PostMapping("/reconstruir/{tiendaId}")
+    public ResponseEntity<Void> reconstruir(@PathVariable Integer tiendaId) {
+        ventaRollupService.reconstruir(tiendaId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -20,6 +20,8 @@ public class BoletaAdminRequest {
     private String compradorNombre;
     private String compradorNumero;
 
+    // Sesión del carrito cuando la venta registra un pedido de WhatsApp: se sueltan sus reservas
+    private String sessionId;
 
     @Data
     public static class ItemRequest {
@@ -0,0 +1,30 @@
+package com.proyecto.StoreCollection.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Estado completo deseado del carrito de una sesión en una tienda (lista vacía = vaciarlo)
+@Data
+public class CarritoSincronizarRequest {
+
+    @NotNull(message = "La lista de ítems es obligatoria")
+    @Size(max = 100, message = "El carrito admite como máximo 100 ítems")
+    @Valid
+    private List<ItemRequest> items = new ArrayList<>();
+
+    @Data
+    public static class ItemRequest {
+        @NotNull(message = "El ID de variante es obligatorio")
+        private Integer varianteId;
+
+        @NotNull(message = "La cantidad es obligatoria")
+        @Min(value = 1, message = "La cantidad debe ser mayor a 0")
+        private Integer cantidad;
+    }
+}
@@ -16,6 +16,7 @@ public class CarritoResponse {
     private String sku;
     private Double precio;        // Usamos Double en DTO para fácil manejo en JSON/Frontend
     private String imagenUrl;
+    private Integer stockDisponible;  // stock menos lo reservado por otros carritos
     private List<AtributoResponse> atributos;
 
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.proyecto.StoreCollection.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Página del catálogo público con paginación por cursor (keyset).
+ * nextCursor es opaco: el cliente solo debe reenviarlo tal cual.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogoPaginaResponse {
+    private List<ProductoCardResponse> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
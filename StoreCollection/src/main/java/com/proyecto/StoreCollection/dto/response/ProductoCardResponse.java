@@ -22,6 +22,8 @@ public class ProductoCardResponse {
     @Builder.Default
     private Integer stockTotal = 0;
 
+    private Integer stockDisponible;  // stockTotal menos lo reservado en carritos
+
     private String imagenPrincipal;
 
     @Builder.Default
@@ -35,6 +37,7 @@ public class ProductoCardResponse {
         private Integer id;
         private BigDecimal precio;
         private Integer stock;
+        private Integer stockDisponible;  // stock menos lo reservado en carritos
         private String imagenUrl;
         @Builder.Default
         private boolean activo = true;
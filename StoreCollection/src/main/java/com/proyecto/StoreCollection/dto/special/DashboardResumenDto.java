@@ -0,0 +1,12 @@
+package com.proyecto.StoreCollection.dto.special;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public record DashboardResumenDto(
+        long totalTiendas,
+        long totalPlanesActivos,
+        long totalBoletas,
+        BigDecimal revenueTotal,
+        Map<String, BigDecimal> revenuePorEstado
+) {}
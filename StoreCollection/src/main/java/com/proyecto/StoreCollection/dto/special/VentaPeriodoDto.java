@@ -0,0 +1,11 @@
+package com.proyecto.StoreCollection.dto.special;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record VentaPeriodoDto(
+        LocalDate inicio,
+        long boletas,
+        long unidades,
+        BigDecimal total
+) {}
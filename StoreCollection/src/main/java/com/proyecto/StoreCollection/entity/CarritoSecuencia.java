@@ -0,0 +1,24 @@
+package com.proyecto.StoreCollection.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Contador compartido de ids de la tabla carrito para MemoriaCarritoStore: cada instancia toma
+ * un bloque de ids con la fila bloqueada, así dos instancias nunca asignan el mismo id.
+ * Una sola fila (id = 1).
+ */
+@Entity
+@Table(name = "carrito_secuencia")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class CarritoSecuencia {
+
+    public static final int UNICA = 1;
+
+    @Id
+    private Integer id;
+
+    // Último id ya entregado a alguna instancia
+    @Column(nullable = false)
+    private int ultimo;
+}
@@ -3,12 +3,15 @@ package com.proyecto.StoreCollection.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
 
+// DynamicUpdate: al editar otros campos no se reescribe stock (lo manejan UPDATEs atómicos)
 @Entity
+@DynamicUpdate
 @Table(name = "producto_variante")
 @Data
 @NoArgsConstructor
@@ -0,0 +1,32 @@
+package com.proyecto.StoreCollection.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Revocación de los tokens de un usuario, para que sobreviva reinicios y llegue a todos los nodos
+ * (TokenRevocationRegistry). Sin FK a usuario: la de un usuario eliminado también tiene que quedar.
+ * Las fechas van en UTC.
+ */
+@Entity
+@Table(name = "token_revocacion")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class TokenRevocacion {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Integer usuarioId;
+
+    // Desactivado o eliminado: no vale ningún token
+    @Column(nullable = false)
+    private boolean bloqueado;
+
+    // Los tokens emitidos antes de este instante no valen
+    @Column(nullable = false)
+    private LocalDateTime validosDesde;
+
+    @Column(nullable = false)
+    private LocalDateTime actualizadoEn;
+}
@@ -0,0 +1,59 @@
+package com.proyecto.StoreCollection.entity;
+
+import lombok.*;
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Ventas acumuladas por tienda, periodo (día / semana / mes) y estado de la boleta.
+ * Se actualiza en la misma transacción que cada cambio de estado (VentaRollupService).
+ */
+@Entity
+@Table(name = "venta_rollup")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class VentaRollup {
+
+    @EmbeddedId
+    private Clave id;
+
+    private Long boletas = 0L;
+
+    private Long unidades = 0L;
+
+    @Column(precision = 14, scale = 2)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    @Embeddable
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class Clave implements Serializable {
+
+        @Column(name = "tienda_id")
+        private Integer tiendaId;
+
+        @Enumerated(EnumType.STRING)
+        private Periodo periodo;
+
+        private LocalDate inicio;
+
+        @Enumerated(EnumType.STRING)
+        private Boleta.EstadoBoleta estado;
+    }
+
+    public enum Periodo {
+        DIA, SEMANA, MES;
+
+        // Primer día del periodo al que pertenece la fecha (las semanas empiezan el lunes)
+        public LocalDate inicioDe(LocalDate fecha) {
+            return switch (this) {
+                case DIA -> fecha;
+                case SEMANA -> fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MES -> fecha.withDayOfMonth(1);
+            };
+        }
+    }
+}
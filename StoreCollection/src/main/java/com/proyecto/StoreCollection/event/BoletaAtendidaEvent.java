@@ -0,0 +1,11 @@
+package com.proyecto.StoreCollection.event;
+
+import java.util.Map;
+
+/**
+ * Se publica cuando una boleta pasa a ATENDIDA y su stock ya se descontó en la BD.
+ * sessionId es el carrito que originó la venta (null en ventas del panel sin carrito);
+ * cantidades es varianteId -> unidades descontadas.
+ */
+public record BoletaAtendidaEvent(Integer boletaId, Integer tiendaId, String sessionId, Map<Integer, Integer> cantidades) {
+}
@@ -0,0 +1,23 @@
+package com.proyecto.StoreCollection.event;
+
+import com.proyecto.StoreCollection.entity.Boleta;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Se publica cuando se crea una boleta o cambia su estado.
+ * estadoAnterior es null si la boleta es nueva; unidades es la suma de las cantidades del detalle.
+ */
+public record BoletaEstadoCambiadoEvent(Integer boletaId, Integer tiendaId, LocalDateTime fecha,
+                                        BigDecimal total, int unidades,
+                                        Boleta.EstadoBoleta estadoAnterior, Boleta.EstadoBoleta estadoNuevo) {
+
+    public static BoletaEstadoCambiadoEvent de(Boleta boleta, Boleta.EstadoBoleta estadoAnterior) {
+        int unidades = boleta.getDetalles().stream()
+                .mapToInt(d -> d.getCantidad() != null ? d.getCantidad() : 0)
+                .sum();
+        return new BoletaEstadoCambiadoEvent(boleta.getId(), boleta.getTienda().getId(), boleta.getFecha(),
+                boleta.getTotal(), unidades, estadoAnterior, boleta.getEstado());
+    }
+}
@@ -0,0 +1,23 @@
+package com.proyecto.StoreCollection.event;
+
+import java.util.Set;
+
+/**
+ * Se publica cuando cambia algo visible en el catálogo público de una tienda:
+ * productos, variantes, categorías o stock.
+ * productoIds vacío = afecta a toda la tienda (ej. activar/desactivar una categoría).
+ */
+public record CatalogoModificadoEvent(Integer tiendaId, Set<Integer> productoIds) {
+
+    public static CatalogoModificadoEvent deTienda(Integer tiendaId) {
+        return new CatalogoModificadoEvent(tiendaId, Set.of());
+    }
+
+    public static CatalogoModificadoEvent deProducto(Integer tiendaId, Integer productoId) {
+        return new CatalogoModificadoEvent(tiendaId, productoId != null ? Set.of(productoId) : Set.of());
+    }
+
+    public boolean afectaTodaLaTienda() {
+        return productoIds == null || productoIds.isEmpty();
+    }
+}
@@ -0,0 +1,8 @@
+package com.proyecto.StoreCollection.event;
+
+/**
+ * Se publica cuando una tienda se crea, edita, activa/desactiva o elimina.
+ * Los listeners lo reciben después del commit para invalidar cachés.
+ */
+public record TiendaModificadaEvent(Integer tiendaId, Integer usuarioId) {
+}
@@ -0,0 +1,19 @@
+package com.proyecto.StoreCollection.event;
+
+/**
+ * Se publica cuando un usuario se crea, edita, activa/desactiva o elimina.
+ * revocacion indica qué hacer con sus tokens; TokenRevocationRegistry la guarda en la misma
+ * transacción y la aplica después del commit.
+ */
+public record UsuarioModificadoEvent(Integer usuarioId, Revocacion revocacion) {
+
+    public enum Revocacion {
+        NINGUNA,
+        EMITIDOS_HASTA_AHORA,   // cambió el email, el rol o se reactivó
+        BLOQUEAR                // desactivado o eliminado
+    }
+
+    public UsuarioModificadoEvent(Integer usuarioId) {
+        this(usuarioId, Revocacion.NINGUNA);
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import org. springframework. data. domain. Pageable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,14 @@ public interface AtributoRepository extends TenantBaseRepository<Atributo, Integ
 
     Optional<Atributo> findByNombreAndTiendaId(String nombre, Integer tiendaId);
 
+    // Diccionario para guardar un producto: [atributo, valor] por cada valor pedido que ya existe
+    // (valor null si el atributo no tiene ninguno de los pedidos)
+    @Query("SELECT a, v FROM Atributo a LEFT JOIN a.valores v ON v.valor IN :valores " +
+            "WHERE a.tienda.id = :tiendaId AND a.nombre IN :nombres")
+    List<Object[]> findConValoresByTiendaIdAndNombreIn(@Param("tiendaId") Integer tiendaId,
+                                                       @Param("nombres") Collection<String> nombres,
+                                                       @Param("valores") Collection<String> valores);
+
     // Métodos simples y válidos (Spring Data los genera automáticamente)
     List<Atributo> findAllByOrderByNombreAsc();
 
@@ -12,10 +12,14 @@ import java.util.Optional;
 public interface AtributoValorRepository extends TenantBaseRepository<AtributoValor, Integer> {
     Optional<AtributoValor> findByAtributoIdAndValor(Integer atributoId, String valor);
     default List<AtributoValor> findByAtributoIdSafe(Integer atributoId) {
-        return findAllByTenant().stream()
-                .filter(v -> v.getAtributo().getId().equals(atributoId))
-                .toList();
+        return withTenant(tiendaId -> findByTiendaIdAndAtributoId(tiendaId, atributoId));
     }
+
+    @Query("SELECT v FROM AtributoValor v JOIN FETCH v.atributo " +
+            "WHERE v.tienda.id = :tiendaId AND v.atributo.id = :atributoId")
+    List<AtributoValor> findByTiendaIdAndAtributoId(
+            @Param("tiendaId") Integer tiendaId,
+            @Param("atributoId") Integer atributoId);
     List<AtributoValor> findAllByOrderByValorAsc();
 
     List<AtributoValor> findByTiendaIdOrderByValorAsc(Integer tiendaId);
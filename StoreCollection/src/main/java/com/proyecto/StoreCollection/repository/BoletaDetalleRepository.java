@@ -2,8 +2,23 @@ package com.proyecto.StoreCollection.repository;
 
 import com.proyecto.StoreCollection.entity.BoletaDetalle;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface BoletaDetalleRepository extends JpaRepository<BoletaDetalle, Integer> {
-}
\ No newline at end of file
+
+    // Líneas de una boleta para el mensaje al cliente: una fila por detalle × atributo, sin entidades
+    @Query("SELECT d.id, d.cantidad, d.precioUnitario, d.subtotal, p.nombre, a.nombre, av.valor " +
+            "FROM BoletaDetalle d " +
+            "JOIN d.variante v " +
+            "JOIN v.producto p " +
+            "LEFT JOIN v.atributos av " +
+            "LEFT JOIN av.atributo a " +
+            "WHERE d.boleta.id = :boletaId " +
+            "ORDER BY d.id, av.id")
+    List<Object[]> findLineasMensajeByBoletaId(@Param("boletaId") Integer boletaId);
+}
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
@@ -38,4 +39,19 @@ public interface BoletaRepository extends JpaRepository<Boleta, Integer> {
     Page<Boleta> findByEstado(Boleta.EstadoBoleta estado, Pageable pageable);
     Page<Boleta> findByTiendaIdAndEstado(Integer tiendaId, Boleta.EstadoBoleta estado, Pageable pageable);
     Page<Boleta> findByTiendaIdAndSessionId(Integer tiendaId, String sessionId, Pageable pageable);
+
+    // Exportación de facturas: boletas de un rango con todo lo que se imprime en el PDF
+    @Query("SELECT DISTINCT b FROM Boleta b " +
+            "JOIN FETCH b.tienda " +
+            "LEFT JOIN FETCH b.user " +
+            "LEFT JOIN FETCH b.detalles d " +
+            "LEFT JOIN FETCH d.variante v " +
+            "LEFT JOIN FETCH v.producto " +
+            "WHERE b.tienda.id = :tiendaId AND b.estado = :estado " +
+            "AND b.fecha >= :desde AND b.fecha < :hasta " +
+            "ORDER BY b.fecha, b.id")
+    List<Boleta> findParaExportacion(@Param("tiendaId") Integer tiendaId,
+                                     @Param("estado") Boleta.EstadoBoleta estado,
+                                     @Param("desde") LocalDateTime desde,
+                                     @Param("hasta") LocalDateTime hasta);
 }
\ No newline at end of file
@@ -2,14 +2,16 @@ package com.proyecto.StoreCollection.repository;
 
 import com.proyecto.StoreCollection.entity.Carrito;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface CarritoRepository extends JpaRepository<Carrito,Integer> {
+public interface CarritoRepository extends JpaRepository<Carrito,Integer>, CarritoVolcadoRepository {
 
      List<Carrito> findBySessionId(String sessionId) ;
      void deleteBySessionId(String sessionId) ;
@@ -29,4 +31,17 @@ public interface CarritoRepository extends JpaRepository<Carrito,Integer> {
      // Y si usas findBySessionIdWithDetails, crea uno nuevo con tiendaId o úsalo con JOIN
      @Query("SELECT c FROM Carrito c JOIN FETCH c.variante v JOIN FETCH v.producto WHERE c.sessionId = :sessionId AND c.tienda.id = :tiendaId")
      List<Carrito> findBySessionIdAndTiendaIdWithDetails(@Param("sessionId") String sessionId, @Param("tiendaId") Integer tiendaId);
+
+     @Modifying
+     @Query("DELETE FROM Carrito c WHERE c.id IN :ids")
+     int eliminarPorIds(@Param("ids") Collection<Integer> ids);
+
+     // Solo columnas: sin cargar la variante (EAGER) de cada línea
+     @Query("SELECT c.id, c.sessionId, c.tienda.id, c.variante.id, c.cantidad FROM Carrito c " +
+             "WHERE c.sessionId = :sessionId AND c.tienda.id = :tiendaId ORDER BY c.id")
+     List<Object[]> findItemsBySessionIdAndTiendaId(@Param("sessionId") String sessionId, @Param("tiendaId") Integer tiendaId);
+
+     @Modifying
+     @Query("UPDATE Carrito c SET c.cantidad = :cantidad WHERE c.id = :id")
+     int actualizarCantidad(@Param("id") Integer id, @Param("cantidad") Integer cantidad);
 }
@@ -0,0 +1,22 @@
+package com.proyecto.StoreCollection.repository;
+
+import com.proyecto.StoreCollection.carrito.CarritoItem;
+
+import java.util.Collection;
+
+/**
+ * Escrituras en lote para el volcado de MemoriaCarritoStore.
+ */
+public interface CarritoVolcadoRepository {
+
+    /** INSERT ... ON DUPLICATE KEY UPDATE de todas las líneas con su id ya asignado. */
+    int guardarTodos(Collection<CarritoItem> items);
+
+    int maxId();
+
+    /**
+     * Reserva cantidad ids consecutivos para esta instancia y devuelve el primero. Bloquea la fila
+     * de carrito_secuencia hasta el fin de la transacción: ninguna otra instancia recibe los mismos.
+     */
+    int reservarIds(int cantidad);
+}
@@ -0,0 +1,59 @@
+package com.proyecto.StoreCollection.repository;
+
+import com.proyecto.StoreCollection.carrito.CarritoItem;
+import com.proyecto.StoreCollection.entity.CarritoSecuencia;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.Collection;
+import java.util.Collections;
+
+public class CarritoVolcadoRepositoryImpl implements CarritoVolcadoRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int guardarTodos(Collection<CarritoItem> items) {
+        if (items.isEmpty()) return 0;
+
+        String sql = "INSERT INTO carrito (id, session_id, tienda_id, variante_id, cantidad) VALUES " +
+                String.join(",", Collections.nCopies(items.size(), "(?, ?, ?, ?, ?)")) +
+                " ON DUPLICATE KEY UPDATE cantidad = VALUES(cantidad)";
+
+        Query query = entityManager.createNativeQuery(sql);
+        int i = 1;
+        for (CarritoItem item : items) {
+            query.setParameter(i++, item.id());
+            query.setParameter(i++, item.sessionId());
+            query.setParameter(i++, item.tiendaId());
+            query.setParameter(i++, item.varianteId());
+            query.setParameter(i++, item.cantidad());
+        }
+        return query.executeUpdate();
+    }
+
+    @Override
+    public int maxId() {
+        Object max = entityManager.createNativeQuery("SELECT COALESCE(MAX(id), 0) FROM carrito").getSingleResult();
+        return ((Number) max).intValue();
+    }
+
+    @Override
+    public int reservarIds(int cantidad) {
+        CarritoSecuencia secuencia = entityManager.find(
+                CarritoSecuencia.class, CarritoSecuencia.UNICA, LockModeType.PESSIMISTIC_WRITE);
+        if (secuencia == null) {
+            // Base sin la fila sembrada (schemas.sql la crea): la primera instancia la inserta
+            secuencia = new CarritoSecuencia(CarritoSecuencia.UNICA, 0);
+            entityManager.persist(secuencia);
+            entityManager.flush();
+        }
+        // Las filas escritas por JpaCarritoStore (AUTO_INCREMENT) también cuentan
+        int ultimo = Math.max(secuencia.getUltimo(), maxId());
+        secuencia.setUltimo(ultimo + cantidad);
+        return ultimo + 1;
+    }
+}
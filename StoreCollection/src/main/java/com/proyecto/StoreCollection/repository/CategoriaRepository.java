@@ -26,6 +26,9 @@ public interface CategoriaRepository extends JpaRepository<Categoria, Integer>,
     @Query("SELECT c FROM Categoria c WHERE c.tienda.id = :tiendaId AND c.activo = true ORDER BY c.nombre")
     List<Categoria> findByTiendaIdAndActivoTrue(@Param("tiendaId") Integer tiendaId);
     List<Categoria> findByTiendaIdOrderByNombreAsc(Integer tiendaId);
+
+    @Query("SELECT c.id FROM Categoria c WHERE c.tienda.id = :tiendaId AND c.activo = true")
+    List<Integer> findIdsActivosByTiendaId(@Param("tiendaId") Integer tiendaId);
     default Page<Categoria> findAllByTenant(Pageable pageable) {
         Integer tenantId = com.proyecto.StoreCollection.tenant.TenantContext.getTenantId();
         if (tenantId == null) throw new IllegalStateException("Tenant no establecido");
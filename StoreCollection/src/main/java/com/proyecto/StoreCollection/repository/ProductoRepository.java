@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,14 +38,50 @@ public interface ProductoRepository extends TenantBaseRepository<Producto, Integ
      // Búsqueda global (ADMIN)
      Page<Producto> findByNombreContainingIgnoreCase(String nombre, Pageable pageable);
 
-     // Búsqueda por nombre en tienda específica (OWNER)
-     @Query("SELECT p FROM Producto p " +
-             "WHERE p.tienda.id = :tenantId " +
-             "AND LOWER(p.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))")
-     Page<Producto> findByNombreContainingIgnoreCaseAndTenantId(
-             @Param("nombre") String nombre,
-             @Param("tenantId") Integer tenantId,
-             Pageable pageable);
+     // ==================== LISTADO ADMIN (ProductoAdminListDTO) ====================
+     // Una fila por producto con los totales de sus variantes ya calculados:
+     // [id, nombre, slug, categoriaId, categoriaNombre, tiendaId, tiendaNombre, activo,
+     //  precioMin, precioMax, stockTotal, imagen, cantidadVariantes]
+     // Precios, stock e imagen solo de variantes activas; la cantidad cuenta todas.
+
+     String ADMIN_LIST_SELECT = "SELECT p.id, p.nombre, p.slug, c.id, c.nombre, t.id, t.nombre, p.activo, " +
+             "MIN(CASE WHEN v.activo = true THEN v.precio END), " +
+             "MAX(CASE WHEN v.activo = true THEN v.precio END), " +
+             "COALESCE(SUM(CASE WHEN v.activo = true THEN v.stock ELSE 0 END), 0), " +
+             "MIN(CASE WHEN v.activo = true AND v.imagenUrl NOT LIKE '%placehold.co%' THEN v.imagenUrl END), " +
+             "COUNT(v.id) " +
+             "FROM Producto p JOIN p.categoria c JOIN p.tienda t LEFT JOIN p.variantes v ";
+     String ADMIN_LIST_GROUP = " GROUP BY p.id, p.nombre, p.slug, c.id, c.nombre, t.id, t.nombre, p.activo";
+
+     @Query(value = ADMIN_LIST_SELECT + ADMIN_LIST_GROUP,
+             countQuery = "SELECT COUNT(p) FROM Producto p")
+     Page<Object[]> findAdminList(Pageable pageable);
+
+     @Query(value = ADMIN_LIST_SELECT + "WHERE t.id = :tiendaId" + ADMIN_LIST_GROUP,
+             countQuery = "SELECT COUNT(p) FROM Producto p WHERE p.tienda.id = :tiendaId")
+     Page<Object[]> findAdminListByTiendaId(@Param("tiendaId") Integer tiendaId, Pageable pageable);
+
+     @Query(value = ADMIN_LIST_SELECT + "WHERE LOWER(p.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))" + ADMIN_LIST_GROUP,
+             countQuery = "SELECT COUNT(p) FROM Producto p WHERE LOWER(p.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))")
+     Page<Object[]> findAdminListByNombre(@Param("nombre") String nombre, Pageable pageable);
+
+     @Query(ADMIN_LIST_SELECT + "WHERE p.id IN :ids" + ADMIN_LIST_GROUP)
+     List<Object[]> findAdminListByIdIn(@Param("ids") Collection<Integer> ids);
+
+     // Índice de búsqueda (ProductoSearchIndex): [productoId, nombre, slug, sku, valorAtributo],
+     // una fila por cada variante y valor de atributo
+     @Query("SELECT p.id, p.nombre, p.slug, v.sku, av.valor FROM Producto p " +
+             "LEFT JOIN p.variantes v " +
+             "LEFT JOIN v.atributos av " +
+             "WHERE p.tienda.id = :tiendaId")
+     List<Object[]> findTextoBusquedaByTiendaId(@Param("tiendaId") Integer tiendaId);
+
+     @Query("SELECT p.id, p.nombre, p.slug, v.sku, av.valor FROM Producto p " +
+             "LEFT JOIN p.variantes v " +
+             "LEFT JOIN v.atributos av " +
+             "WHERE p.tienda.id = :tiendaId AND p.id IN :ids")
+     List<Object[]> findTextoBusquedaByTiendaIdAndIdIn(@Param("tiendaId") Integer tiendaId,
+                                                      @Param("ids") Collection<Integer> ids);
 
      // ==================== POR CATEGORÍA ====================
 
@@ -85,7 +123,8 @@ public interface ProductoRepository extends TenantBaseRepository<Producto, Integ
             pv.stock,
             pv.imagenUrl,
             pv.activo,
-            p.activo     
+            p.activo,
+            pv.id
         FROM Producto p
         JOIN p.categoria c
         LEFT JOIN p.variantes pv WITH pv.activo = true
@@ -129,6 +168,102 @@ public interface ProductoRepository extends TenantBaseRepository<Producto, Integ
              @Param("tiendaSlug") String tiendaSlug,
              @Param("productoSlug") String productoSlug);
 
+     // Para ActiveResourceIndex: solo id y slug de los activos
+     @Query("SELECT p.id, p.slug FROM Producto p WHERE p.tienda.id = :tiendaId AND p.activo = true")
+     List<Object[]> findIdsYSlugsActivosByTiendaId(@Param("tiendaId") Integer tiendaId);
+
+     // ==================== CATÁLOGO PÚBLICO PAGINADO (keyset) ====================
+     // MIN(precio), SUM(stock) e imagen principal se calculan en SQL, una fila por card.
+     // Filtros sin valor: categoriaId = 0 y rango de precios abierto (evita binds null en nativo).
+
+     String CATALOGO_BASE = """
+        SELECT
+            p.id,
+            p.nombre,
+            p.slug,
+            c.nombre         AS categoria_nombre,
+            MIN(pv.precio)   AS precio_min,
+            SUM(pv.stock)    AS stock_total,
+            (SELECT pv2.imagen_url FROM producto_variante pv2
+              WHERE pv2.producto_id = p.id AND pv2.activo = true AND pv2.precio IS NOT NULL
+              ORDER BY pv2.id LIMIT 1) AS imagen_principal
+        FROM producto p
+        JOIN categoria c ON c.id = p.categoria_id AND c.activo = true
+        JOIN producto_variante pv ON pv.producto_id = p.id AND pv.activo = true AND pv.precio IS NOT NULL
+        WHERE p.tienda_id = :tiendaId
+          AND p.activo = true
+          AND (:categoriaId = 0 OR p.categoria_id = :categoriaId)
+        """;
+
+     String CATALOGO_GROUP = """
+        GROUP BY p.id, p.nombre, p.slug, c.nombre
+        HAVING SUM(pv.stock) > 0
+           AND MIN(pv.precio) BETWEEN :precioMin AND :precioMax
+        """;
+
+     @Query(value = CATALOGO_BASE + CATALOGO_GROUP + """
+           AND (:primera = true
+                OR MIN(pv.precio) > :cursorPrecio
+                OR (MIN(pv.precio) = :cursorPrecio AND p.id > :cursorId))
+        ORDER BY precio_min ASC, p.id ASC
+        LIMIT :limite
+        """, nativeQuery = true)
+     List<Object[]> findCatalogoPorPrecioAsc(@Param("tiendaId") Integer tiendaId,
+                                             @Param("categoriaId") Integer categoriaId,
+                                             @Param("precioMin") BigDecimal precioMin,
+                                             @Param("precioMax") BigDecimal precioMax,
+                                             @Param("primera") boolean primera,
+                                             @Param("cursorPrecio") BigDecimal cursorPrecio,
+                                             @Param("cursorId") Integer cursorId,
+                                             @Param("limite") int limite);
+
+     @Query(value = CATALOGO_BASE + CATALOGO_GROUP + """
+           AND (:primera = true
+                OR MIN(pv.precio) < :cursorPrecio
+                OR (MIN(pv.precio) = :cursorPrecio AND p.id < :cursorId))
+        ORDER BY precio_min DESC, p.id DESC
+        LIMIT :limite
+        """, nativeQuery = true)
+     List<Object[]> findCatalogoPorPrecioDesc(@Param("tiendaId") Integer tiendaId,
+                                              @Param("categoriaId") Integer categoriaId,
+                                              @Param("precioMin") BigDecimal precioMin,
+                                              @Param("precioMax") BigDecimal precioMax,
+                                              @Param("primera") boolean primera,
+                                              @Param("cursorPrecio") BigDecimal cursorPrecio,
+                                              @Param("cursorId") Integer cursorId,
+                                              @Param("limite") int limite);
+
+     @Query(value = CATALOGO_BASE + CATALOGO_GROUP + """
+           AND (:primera = true
+                OR SUM(pv.stock) < :cursorStock
+                OR (SUM(pv.stock) = :cursorStock AND p.id < :cursorId))
+        ORDER BY stock_total DESC, p.id DESC
+        LIMIT :limite
+        """, nativeQuery = true)
+     List<Object[]> findCatalogoPorStock(@Param("tiendaId") Integer tiendaId,
+                                         @Param("categoriaId") Integer categoriaId,
+                                         @Param("precioMin") BigDecimal precioMin,
+                                         @Param("precioMax") BigDecimal precioMax,
+                                         @Param("primera") boolean primera,
+                                         @Param("cursorStock") long cursorStock,
+                                         @Param("cursorId") Integer cursorId,
+                                         @Param("limite") int limite);
+
+     // "Más nuevos" = id descendente (producto no guarda fecha de creación)
+     @Query(value = CATALOGO_BASE + """
+          AND (:primera = true OR p.id < :cursorId)
+        """ + CATALOGO_GROUP + """
+        ORDER BY p.id DESC
+        LIMIT :limite
+        """, nativeQuery = true)
+     List<Object[]> findCatalogoMasNuevos(@Param("tiendaId") Integer tiendaId,
+                                          @Param("categoriaId") Integer categoriaId,
+                                          @Param("precioMin") BigDecimal precioMin,
+                                          @Param("precioMax") BigDecimal precioMax,
+                                          @Param("primera") boolean primera,
+                                          @Param("cursorId") Integer cursorId,
+                                          @Param("limite") int limite);
+
      // ==================== OPERACIONES MASIVAS ====================
      @Query("""
     SELECT p FROM Producto p
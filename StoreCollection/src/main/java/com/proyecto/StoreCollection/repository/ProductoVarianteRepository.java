@@ -6,10 +6,12 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductoVarianteRepository extends TenantBaseRepository<ProductoVariante, Integer> {
+public interface ProductoVarianteRepository extends TenantBaseRepository<ProductoVariante, Integer>,
+          ProductoVarianteStockRepository {
 
      // ==================== CONTADORES ====================
 
@@ -46,15 +48,34 @@ public interface ProductoVarianteRepository extends TenantBaseRepository<Product
              @Param("tiendaSlug") String tiendaSlug,
              @Param("productoSlug") String productoSlug);
 
+     // Datos de las variantes de un carrito: una fila por variante × atributo, sin entidades
+     @Query("SELECT v.id, v.tienda.id, v.sku, v.precio, v.stock, v.imagenUrl, p.nombre, " +
+             "av.id, a.nombre, av.valor, a.tienda.id, p.id " +
+             "FROM ProductoVariante v " +
+             "JOIN v.producto p " +
+             "LEFT JOIN v.atributos av " +
+             "LEFT JOIN av.atributo a " +
+             "WHERE v.id IN :ids " +
+             "ORDER BY v.id, av.id")
+     List<Object[]> findResumenCarritoByIdIn(@Param("ids") Collection<Integer> ids);
+
      // ==================== MÉTODO SEGURO CON TENANT ====================
 
      /**
-      * Filtra variantes por producto usando el tenant actual.
+      * Variantes de un producto dentro del tenant actual.
       * Evita exposición accidental de datos de otras tiendas.
       */
      default List<ProductoVariante> findByProductoIdSafe(Integer productoId) {
-          return findAllByTenant().stream()
-                  .filter(v -> v.getProducto().getId().equals(productoId))
-                  .toList();
+          return withTenant(tiendaId -> findByTiendaIdAndProductoId(tiendaId, productoId));
      }
-}
\ No newline at end of file
+
+     // Usa el índice (tienda_id, producto_id); trae los atributos en la misma consulta
+     @Query("SELECT DISTINCT v FROM ProductoVariante v " +
+             "LEFT JOIN FETCH v.atributos av " +
+             "LEFT JOIN FETCH av.atributo " +
+             "WHERE v.tienda.id = :tiendaId AND v.producto.id = :productoId " +
+             "ORDER BY v.id")
+     List<ProductoVariante> findByTiendaIdAndProductoId(
+             @Param("tiendaId") Integer tiendaId,
+             @Param("productoId") Integer productoId);
+}
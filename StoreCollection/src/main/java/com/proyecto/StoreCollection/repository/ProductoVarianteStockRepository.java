@@ -0,0 +1,20 @@
+package com.proyecto.StoreCollection.repository;
+
+import java.util.Map;
+
+/**
+ * Operaciones de stock en bloque sobre producto_variante (fragmento de ProductoVarianteRepository).
+ * Cada método es un solo UPDATE para todas las variantes: varianteId → cantidad. Las variantes
+ * ya cargadas en la transacción se refrescan después, así que su getStock() es el nuevo.
+ */
+public interface ProductoVarianteStockRepository {
+
+    /**
+     * Descuenta solo donde alcanza el stock (stock >= cantidad).
+     * Devuelve cuántas variantes se actualizaron; si es menor que cantidades.size()
+     * alguna no tenía stock suficiente y el llamador debe abortar la transacción.
+     */
+    int descontarStockSiAlcanza(Map<Integer, Integer> cantidades);
+
+    int devolverStock(Map<Integer, Integer> cantidades);
+}
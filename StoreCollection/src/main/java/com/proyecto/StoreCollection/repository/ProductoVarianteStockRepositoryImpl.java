@@ -0,0 +1,82 @@
+package com.proyecto.StoreCollection.repository;
+
+import com.proyecto.StoreCollection.entity.ProductoVariante;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.Hibernate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ProductoVarianteStockRepositoryImpl implements ProductoVarianteStockRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int descontarStockSiAlcanza(Map<Integer, Integer> cantidades) {
+        if (cantidades.isEmpty()) return 0;
+        // UPDATE producto_variante
+        //    SET stock = stock - CASE id WHEN ? THEN ? ... END
+        //  WHERE id IN (...) AND stock >= CASE id WHEN ? THEN ? ... END
+        return ejecutar("stock - " + caseCantidad(cantidades.size()),
+                " AND stock >= " + caseCantidad(cantidades.size()),
+                cantidades, true);
+    }
+
+    @Override
+    public int devolverStock(Map<Integer, Integer> cantidades) {
+        if (cantidades.isEmpty()) return 0;
+        return ejecutar("stock + " + caseCantidad(cantidades.size()), "", cantidades, false);
+    }
+
+    private int ejecutar(String nuevoStock, String condicionExtra, Map<Integer, Integer> cantidades, boolean caseEnWhere) {
+        // Orden por id: todas las transacciones bloquean las filas en el mismo orden
+        Map<Integer, Integer> ordenadas = new TreeMap<>(cantidades);
+
+        String sql = "UPDATE producto_variante SET stock = " + nuevoStock +
+                " WHERE id IN (" + String.join(",", Collections.nCopies(ordenadas.size(), "?")) + ")" +
+                condicionExtra;
+
+        List<Object> params = new ArrayList<>();
+        agregarCase(params, ordenadas);
+        ordenadas.keySet().forEach(params::add);
+        if (caseEnWhere) agregarCase(params, ordenadas);
+
+        Query query = entityManager.createNativeQuery(sql);
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        int actualizadas = query.executeUpdate();
+        refrescarCargadas(ordenadas.keySet());
+        return actualizadas;
+    }
+
+    // El UPDATE nativo no pasa por el contexto de persistencia: las variantes ya cargadas en esta
+    // transacción (ej. vía boleta.getDetalles()) se releen para no seguir viendo el stock anterior.
+    // Las que no están cargadas quedan como proxy sin inicializar y se leen de la BD al usarlas.
+    private void refrescarCargadas(Collection<Integer> ids) {
+        for (Integer id : ids) {
+            ProductoVariante variante = entityManager.getReference(ProductoVariante.class, id);
+            if (Hibernate.isInitialized(variante)) {
+                entityManager.refresh(variante);
+            }
+        }
+    }
+
+    private static String caseCantidad(int n) {
+        return "CASE id" + " WHEN ? THEN ?".repeat(n) + " END";
+    }
+
+    private static void agregarCase(List<Object> params, Map<Integer, Integer> cantidades) {
+        cantidades.forEach((id, cantidad) -> {
+            params.add(id);
+            params.add(cantidad);
+        });
+    }
+}
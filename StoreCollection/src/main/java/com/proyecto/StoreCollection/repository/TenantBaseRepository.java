@@ -8,25 +8,30 @@ import org.springframework.data.repository.NoRepositoryBean;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 @NoRepositoryBean // IMPORTANTE: esto evita que Spring cree una instancia de esta interfaz
 public interface TenantBaseRepository<T, ID> extends JpaRepository<T, ID> {
 
-    // Filtro automático usando el tenant actual
-    default List<T> findAllByTenant() {
+    /**
+     * Ejecuta una consulta que recibe el tiendaId (ej. findByTiendaIdAndXxx) con el tenant actual.
+     * Así el filtro por tienda lo hace la base de datos y no un stream sobre findAllByTenant().
+     */
+    default <R> R withTenant(Function<Integer, R> consulta) {
         Integer tenantId = TenantContext.getTenantId();
         if (tenantId == null) {
             throw new IllegalStateException("Tenant no establecido. ¿Pasaste por el TenantFilter?");
         }
-        return findAllByTiendaId(tenantId);
+        return consulta.apply(tenantId);
+    }
+
+    // Filtro automático usando el tenant actual
+    default List<T> findAllByTenant() {
+        return withTenant(this::findAllByTiendaId);
     }
 
     default Optional<T> findByIdAndTenant(ID id) {
-        Integer tenantId = TenantContext.getTenantId();
-        if (tenantId == null) {
-            throw new IllegalStateException("Tenant no establecido");
-        }
-        return findByIdAndTiendaId(id, tenantId);
+        return withTenant(tenantId -> findByIdAndTiendaId(id, tenantId));
     }
 
     default T getByIdAndTenant(ID id) {
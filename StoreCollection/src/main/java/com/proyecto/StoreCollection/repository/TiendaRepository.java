@@ -1,6 +1,7 @@
 package com.proyecto.StoreCollection.repository;
 
 import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.tenant.TenantInfo;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -18,6 +19,11 @@ public interface TiendaRepository extends JpaRepository<Tienda, Integer> {
     List<Tienda> findAllByOrderByNombreAsc();
     Optional<Tienda> findBySlug(String slug);
 
+    // Solo lo necesario para TenantFilter (sin cargar la entidad)
+    @Query("SELECT new com.proyecto.StoreCollection.tenant.TenantInfo(t.id, t.activo, p.id) " +
+            "FROM Tienda t LEFT JOIN t.plan p WHERE t.slug = :slug")
+    Optional<TenantInfo> findTenantInfoBySlug(@Param("slug") String slug);
+
     Page<Tienda> findByNombreContainingIgnoreCase(String nombre, Pageable pageable);
 
     List<Tienda> findByUserId(Integer userId);
@@ -34,5 +40,8 @@ public interface TiendaRepository extends JpaRepository<Tienda, Integer> {
     @Query("SELECT t FROM Tienda t WHERE t.activo = true ")
     Page<Tienda> findAllPublicasActivas(Pageable pageable);
 
+    @Query("SELECT t.id FROM Tienda t ORDER BY t.id")
+    List<Integer> findAllIds();
+
 
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.proyecto.StoreCollection.repository;
+
+import com.proyecto.StoreCollection.entity.TokenRevocacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocacionRepository extends JpaRepository<TokenRevocacion, Integer> {
+
+    // Las que todavía pueden rechazar un token: bloqueos o revocaciones más nuevas que el token más viejo válido
+    @Query("SELECT r FROM TokenRevocacion r WHERE r.bloqueado = true OR r.validosDesde > :desde")
+    List<TokenRevocacion> findVigentes(@Param("desde") LocalDateTime desde);
+
+    List<TokenRevocacion> findByActualizadoEnGreaterThanEqual(LocalDateTime desde);
+}
@@ -1,5 +1,6 @@
 package com.proyecto.StoreCollection.repository;
 
+import com.proyecto.StoreCollection.config.PrincipalInfo;
 import com.proyecto.StoreCollection.entity.Usuario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -15,6 +16,15 @@ import java.util.Optional;
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Integer> {
     Optional<Usuario> findByEmail(String email);
+
+    // Usuario + su primera tienda en una sola consulta (ver PrincipalCache)
+    @Query("SELECT new com.proyecto.StoreCollection.config.PrincipalInfo(u.id, u.email, u.rol, u.activo, t.id, t.activo) " +
+            "FROM Usuario u LEFT JOIN Tienda t ON t.user = u " +
+            "WHERE u.email = :email ORDER BY t.id ASC")
+    List<PrincipalInfo> findPrincipalInfoByEmail(@Param("email") String email);
+
+    @Query("SELECT u.id FROM Usuario u WHERE u.activo = false")
+    List<Integer> findIdsInactivos();
     boolean existsByEmail(String email);
     List<Usuario> findAllByOrderByNombreAsc();
     @Query("SELECT u FROM Usuario u WHERE " +
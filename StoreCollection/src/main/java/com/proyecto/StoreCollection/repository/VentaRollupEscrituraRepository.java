@@ -0,0 +1,22 @@
+package com.proyecto.StoreCollection.repository;
+
+import com.proyecto.StoreCollection.entity.Boleta;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Escrituras nativas sobre venta_rollup (upsert incremental y reconstrucción).
+ */
+public interface VentaRollupEscrituraRepository {
+
+    /**
+     * Mueve una boleta de estadoAnterior (null si es nueva) a estadoNuevo en los tres periodos,
+     * con un solo INSERT ... ON DUPLICATE KEY UPDATE.
+     */
+    int registrarCambio(Integer tiendaId, LocalDate fecha, Boleta.EstadoBoleta estadoAnterior,
+                        Boleta.EstadoBoleta estadoNuevo, int unidades, BigDecimal total);
+
+    /** Borra y vuelve a calcular desde boleta / boleta_detalle los acumulados de una tienda. */
+    int reconstruir(Integer tiendaId);
+}
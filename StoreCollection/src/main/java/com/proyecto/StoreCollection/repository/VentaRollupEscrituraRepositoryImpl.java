@@ -0,0 +1,78 @@
+package com.proyecto.StoreCollection.repository;
+
+import com.proyecto.StoreCollection.entity.Boleta;
+import com.proyecto.StoreCollection.entity.VentaRollup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class VentaRollupEscrituraRepositoryImpl implements VentaRollupEscrituraRepository {
+
+    // Inicio de cada periodo calculado en MySQL; debe coincidir con VentaRollup.Periodo.inicioDe
+    private static final String[][] PERIODOS = {
+            {"DIA", "DATE(b.fecha)"},
+            {"SEMANA", "DATE(b.fecha) - INTERVAL WEEKDAY(b.fecha) DAY"},
+            {"MES", "DATE(b.fecha) - INTERVAL (DAYOFMONTH(b.fecha) - 1) DAY"}
+    };
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int registrarCambio(Integer tiendaId, LocalDate fecha, Boleta.EstadoBoleta estadoAnterior,
+                               Boleta.EstadoBoleta estadoNuevo, int unidades, BigDecimal total) {
+        List<Object[]> filas = new ArrayList<>(6);
+        for (VentaRollup.Periodo periodo : VentaRollup.Periodo.values()) {
+            LocalDate inicio = periodo.inicioDe(fecha);
+            if (estadoAnterior != null) {
+                filas.add(new Object[]{tiendaId, periodo.name(), inicio, estadoAnterior.name(), -1, -unidades, total.negate()});
+            }
+            filas.add(new Object[]{tiendaId, periodo.name(), inicio, estadoNuevo.name(), 1, unidades, total});
+        }
+
+        String sql = "INSERT INTO venta_rollup (tienda_id, periodo, inicio, estado, boletas, unidades, total) VALUES " +
+                String.join(",", Collections.nCopies(filas.size(), "(?, ?, ?, ?, ?, ?, ?)")) +
+                " ON DUPLICATE KEY UPDATE boletas = boletas + VALUES(boletas), " +
+                "unidades = unidades + VALUES(unidades), total = total + VALUES(total)";
+
+        Query query = entityManager.createNativeQuery(sql);
+        int i = 1;
+        for (Object[] fila : filas) {
+            for (Object valor : fila) {
+                query.setParameter(i++, valor);
+            }
+        }
+        return query.executeUpdate();
+    }
+
+    @Override
+    public int reconstruir(Integer tiendaId) {
+        entityManager.createNativeQuery("DELETE FROM venta_rollup WHERE tienda_id = ?")
+                .setParameter(1, tiendaId)
+                .executeUpdate();
+
+        int filas = 0;
+        for (String[] periodo : PERIODOS) {
+            String sql = "INSERT INTO venta_rollup (tienda_id, periodo, inicio, estado, boletas, unidades, total) " +
+                    "SELECT b.tienda_id, '" + periodo[0] + "', " + periodo[1] + ", b.estado, " +
+                    "COUNT(*), COALESCE(SUM(u.unidades), 0), SUM(b.total) " +
+                    "FROM boleta b " +
+                    "LEFT JOIN (SELECT d.boleta_id, SUM(d.cantidad) AS unidades " +
+                    "           FROM boleta_detalle d JOIN boleta bd ON bd.id = d.boleta_id " +
+                    "           WHERE bd.tienda_id = ? GROUP BY d.boleta_id) u ON u.boleta_id = b.id " +
+                    "WHERE b.tienda_id = ? " +
+                    "GROUP BY b.tienda_id, " + periodo[1] + ", b.estado";
+            filas += entityManager.createNativeQuery(sql)
+                    .setParameter(1, tiendaId)
+                    .setParameter(2, tiendaId)
+                    .executeUpdate();
+        }
+        return filas;
+    }
+}
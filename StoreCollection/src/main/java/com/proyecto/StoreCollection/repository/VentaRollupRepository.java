@@ -0,0 +1,49 @@
+package com.proyecto.StoreCollection.repository;
+
+import com.proyecto.StoreCollection.entity.Boleta;
+import com.proyecto.StoreCollection.entity.VentaRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VentaRollupRepository extends JpaRepository<VentaRollup, VentaRollup.Clave>, VentaRollupEscrituraRepository {
+
+    // Totales por estado sumando todos los periodos del tipo dado (con MES son menos filas): [estado, boletas, total]
+    @Query("SELECT r.id.estado, SUM(r.boletas), COALESCE(SUM(r.total), 0) FROM VentaRollup r " +
+            "WHERE r.id.periodo = :periodo " +
+            "GROUP BY r.id.estado")
+    List<Object[]> resumenPorEstado(@Param("periodo") VentaRollup.Periodo periodo);
+
+    @Query("SELECT r.id.estado, SUM(r.boletas), COALESCE(SUM(r.total), 0) FROM VentaRollup r " +
+            "WHERE r.id.periodo = :periodo " +
+            "AND r.id.tiendaId IN :tiendaIds " +
+            "GROUP BY r.id.estado")
+    List<Object[]> resumenPorEstadoAndTiendaIdIn(@Param("periodo") VentaRollup.Periodo periodo,
+                                                 @Param("tiendaIds") Collection<Integer> tiendaIds);
+
+    // Serie de tiempo: [inicio, boletas, unidades, total], una fila por periodo con ventas
+    @Query("SELECT r.id.inicio, SUM(r.boletas), SUM(r.unidades), SUM(r.total) FROM VentaRollup r " +
+            "WHERE r.id.periodo = :periodo AND r.id.estado = :estado " +
+            "AND r.id.inicio BETWEEN :desde AND :hasta " +
+            "GROUP BY r.id.inicio ORDER BY r.id.inicio")
+    List<Object[]> serie(@Param("periodo") VentaRollup.Periodo periodo,
+                         @Param("estado") Boleta.EstadoBoleta estado,
+                         @Param("desde") LocalDate desde,
+                         @Param("hasta") LocalDate hasta);
+
+    @Query("SELECT r.id.inicio, SUM(r.boletas), SUM(r.unidades), SUM(r.total) FROM VentaRollup r " +
+            "WHERE r.id.periodo = :periodo AND r.id.estado = :estado " +
+            "AND r.id.inicio BETWEEN :desde AND :hasta AND r.id.tiendaId IN :tiendaIds " +
+            "GROUP BY r.id.inicio ORDER BY r.id.inicio")
+    List<Object[]> serieByTiendaIdIn(@Param("periodo") VentaRollup.Periodo periodo,
+                                     @Param("estado") Boleta.EstadoBoleta estado,
+                                     @Param("desde") LocalDate desde,
+                                     @Param("hasta") LocalDate hasta,
+                                     @Param("tiendaIds") Collection<Integer> tiendaIds);
+}
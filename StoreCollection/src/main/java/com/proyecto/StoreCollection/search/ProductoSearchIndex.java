@@ -0,0 +1,253 @@
+package com.proyecto.StoreCollection.search;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.cache.TtlCache;
+import com.proyecto.StoreCollection.event.CatalogoModificadoEvent;
+import com.proyecto.StoreCollection.repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice invertido de productos por tienda para el buscador del panel (dueño / venta directa).
+ * Indexa las palabras normalizadas del nombre, slug, SKU y valores de atributos, más los
+ * trigramas de cada palabra, para encontrar por palabra exacta, prefijo, subcadena o con
+ * errores de tipeo (1 error desde 4 letras, 2 desde 8). Cada palabra de la búsqueda debe
+ * coincidir con algo del producto.
+ *
+ * El índice de una tienda se arma con una consulta la primera vez que se busca en ella y se
+ * mantiene con CatalogoModificadoEvent (ProductoServiceImpl.save / deleteById, variantes, etc.).
+ */
+@Component
+public class ProductoSearchIndex {
+
+    // Peso de cada campo y puntaje según cómo coincidió la palabra
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_SKU = 2;
+    private static final int PESO_OTRO = 1;
+    private static final int EXACTA = 10;
+    private static final int PREFIJO = 6;
+    private static final int SUBCADENA = 4;
+    private static final int UN_ERROR = 3;
+    private static final int DOS_ERRORES = 1;
+
+    private final ProductoRepository productoRepository;
+    private final TtlCache<Integer, IndiceTienda> cache;
+
+    public ProductoSearchIndex(ProductoRepository productoRepository,
+                               CacheRegistry cacheRegistry,
+                               @Value("${app.cache.busqueda-productos.max-size:500}") int maxSize,
+                               @Value("${app.cache.busqueda-productos.ttl-seconds:3600}") long ttlSeconds) {
+        this.productoRepository = productoRepository;
+        this.cache = cacheRegistry.crear("busqueda-productos", maxSize, ttlSeconds * 1000);
+    }
+
+    /** Ids de los productos de la tienda que coinciden, del más al menos relevante. */
+    public Page<Integer> buscar(Integer tiendaId, String texto, Pageable pageable) {
+        IndiceTienda indice = cache.get(tiendaId, this::cargar);
+        List<Integer> ids = indice.buscar(texto);
+
+        int desde = (int) Math.min(pageable.getOffset(), ids.size());
+        int hasta = Math.min(desde + pageable.getPageSize(), ids.size());
+        return new PageImpl<>(new ArrayList<>(ids.subList(desde, hasta)), pageable, ids.size());
+    }
+
+    private IndiceTienda cargar(Integer tiendaId) {
+        return new IndiceTienda(documentos(productoRepository.findTextoBusquedaByTiendaId(tiendaId)));
+    }
+
+    // Synchronized: dos cambios seguidos de la misma tienda no deben pisarse
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogoModificado(CatalogoModificadoEvent event) {
+        Integer tiendaId = event.tiendaId();
+        if (tiendaId == null) return;
+        if (event.afectaTodaLaTienda()) {
+            cache.evict(tiendaId);
+            return;
+        }
+
+        IndiceTienda actual = cache.get(tiendaId);
+        if (actual == null) return;
+
+        Map<Integer, Documento> cambiados = documentos(
+                productoRepository.findTextoBusquedaByTiendaIdAndIdIn(tiendaId, event.productoIds()));
+        IndiceTienda nuevo = actual.reemplazando(event.productoIds(), cambiados);
+
+        // evict antes del put: si había una carga completa en curso (con datos previos al cambio), no se guarda
+        cache.evict(tiendaId);
+        cache.put(tiendaId, nuevo);
+    }
+
+    // ======================== DOCUMENTOS ========================
+
+    private record Documento(Integer id, String nombre, Map<String, Integer> palabras) {
+    }
+
+    // Filas [productoId, nombre, slug, sku, valorAtributo]
+    private static Map<Integer, Documento> documentos(List<Object[]> filas) {
+        Map<Integer, Documento> documentos = new LinkedHashMap<>();
+        for (Object[] fila : filas) {
+            Integer id = (Integer) fila[0];
+            Documento doc = documentos.computeIfAbsent(id, k -> {
+                String nombre = (String) fila[1];
+                Documento nuevo = new Documento(k, nombre != null ? nombre : "", new HashMap<>());
+                agregar(nuevo, nombre, PESO_NOMBRE);
+                agregar(nuevo, (String) fila[2], PESO_OTRO);
+                return nuevo;
+            });
+            String sku = (String) fila[3];
+            agregar(doc, sku, PESO_SKU);
+            // El SKU también entero y sin separadores: "CAM-ROJ-M" se encuentra buscando "camroj"
+            String skuNormalizado = TextNormalizer.normalizar(sku);
+            if (skuNormalizado.indexOf(' ') >= 0) {
+                doc.palabras().merge(skuNormalizado.replace(" ", ""), PESO_SKU, Math::max);
+            }
+            agregar(doc, (String) fila[4], PESO_OTRO);
+        }
+        return documentos;
+    }
+
+    private static void agregar(Documento doc, String texto, int peso) {
+        for (String palabra : TextNormalizer.tokens(TextNormalizer.normalizar(texto))) {
+            doc.palabras().merge(palabra, peso, Math::max);
+        }
+    }
+
+    // ======================== ÍNDICE DE UNA TIENDA ========================
+
+    // Inmutable: los cambios crean una copia (los catálogos por tienda están acotados por el plan)
+    private static final class IndiceTienda {
+
+        private final Map<Integer, Documento> documentos;
+        // palabra -> (productoId -> peso del campo donde aparece)
+        private final NavigableMap<String, Map<Integer, Integer>> palabras = new TreeMap<>();
+        // trigrama -> palabras del vocabulario que lo contienen
+        private final Map<String, Set<String>> trigramas = new HashMap<>();
+
+        IndiceTienda(Map<Integer, Documento> documentos) {
+            this.documentos = documentos;
+            for (Documento doc : documentos.values()) {
+                doc.palabras().forEach((palabra, peso) ->
+                        palabras.computeIfAbsent(palabra, k -> new HashMap<>()).put(doc.id(), peso));
+            }
+            for (String palabra : palabras.keySet()) {
+                if (palabra.length() < 3) continue;
+                for (String trigrama : TextNormalizer.ngramas(palabra, 3)) {
+                    trigramas.computeIfAbsent(trigrama, k -> new HashSet<>()).add(palabra);
+                }
+            }
+        }
+
+        IndiceTienda reemplazando(Set<Integer> ids, Map<Integer, Documento> cambiados) {
+            Map<Integer, Documento> copia = new LinkedHashMap<>(documentos);
+            ids.forEach(copia::remove);
+            copia.putAll(cambiados);
+            return new IndiceTienda(copia);
+        }
+
+        List<Integer> buscar(String texto) {
+            List<String> consulta = TextNormalizer.tokens(TextNormalizer.normalizar(texto));
+            if (consulta.isEmpty()) return List.of();
+
+            Map<Integer, Integer> puntajes = null;
+            for (String q : consulta) {
+                Map<Integer, Integer> porPalabra = coincidencias(q);
+                if (puntajes == null) {
+                    puntajes = porPalabra;
+                } else {
+                    puntajes.keySet().retainAll(porPalabra.keySet());
+                    puntajes.replaceAll((id, p) -> p + porPalabra.get(id));
+                }
+                if (puntajes.isEmpty()) return List.of();
+            }
+
+            Map<Integer, Integer> finales = puntajes;
+            List<Integer> ids = new ArrayList<>(finales.keySet());
+            ids.sort(Comparator.<Integer>comparingInt(finales::get).reversed()
+                    .thenComparing(id -> documentos.get(id).nombre(), String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(Comparator.naturalOrder()));
+            return ids;
+        }
+
+        // Mejor puntaje de cada producto para una palabra de la búsqueda
+        private Map<Integer, Integer> coincidencias(String q) {
+            Map<Integer, Integer> resultado = new HashMap<>();
+
+            for (Map.Entry<String, Map<Integer, Integer>> e
+                    : palabras.subMap(q, true, q + Character.MAX_VALUE, false).entrySet()) {
+                sumar(resultado, e.getValue(), e.getKey().equals(q) ? EXACTA : PREFIJO);
+            }
+            if (q.length() < 3) return resultado;
+
+            // Cuántos trigramas de q tiene cada palabra del vocabulario
+            Set<String> trigramasQ = TextNormalizer.ngramas(q, 3);
+            Map<String, Integer> compartidos = new HashMap<>();
+            for (String trigrama : trigramasQ) {
+                for (String palabra : trigramas.getOrDefault(trigrama, Collections.emptySet())) {
+                    compartidos.merge(palabra, 1, Integer::sum);
+                }
+            }
+
+            int maxErrores = q.length() >= 8 ? 2 : q.length() >= 4 ? 1 : 0;
+            // Con k errores se conservan al menos (trigramas - 3k) trigramas
+            int minimoParaErrores = Math.max(1, trigramasQ.size() - 3 * maxErrores);
+            compartidos.forEach((palabra, cantidad) -> {
+                if (palabra.startsWith(q)) return;   // ya contada como prefijo
+                if (cantidad == trigramasQ.size() && palabra.contains(q)) {
+                    sumar(resultado, palabras.get(palabra), SUBCADENA);
+                } else if (maxErrores > 0 && cantidad >= minimoParaErrores
+                        && Math.abs(palabra.length() - q.length()) <= maxErrores) {
+                    int d = distancia(q, palabra, maxErrores);
+                    if (d == 1) sumar(resultado, palabras.get(palabra), UN_ERROR);
+                    else if (d == 2) sumar(resultado, palabras.get(palabra), DOS_ERRORES);
+                }
+            });
+            return resultado;
+        }
+
+        private static void sumar(Map<Integer, Integer> resultado, Map<Integer, Integer> productos, int puntaje) {
+            productos.forEach((id, peso) -> resultado.merge(id, puntaje * peso, Math::max));
+        }
+    }
+
+    // Distancia de edición con transposiciones (OSA); -1 si supera max
+    static int distancia(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) return -1;
+
+        int[][] d = new int[n + 1][m + 1];
+        for (int i = 0; i <= n; i++) d[i][0] = i;
+        for (int j = 0; j <= m; j++) d[0][j] = j;
+
+        for (int i = 1; i <= n; i++) {
+            int minFila = Integer.MAX_VALUE;
+            for (int j = 1; j <= m; j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    v = Math.min(v, d[i - 2][j - 2] + 1);
+                }
+                d[i][j] = v;
+                minFila = Math.min(minFila, v);
+            }
+            if (minFila > max) return -1;
+        }
+        return d[n][m] <= max ? d[n][m] : -1;
+    }
+}
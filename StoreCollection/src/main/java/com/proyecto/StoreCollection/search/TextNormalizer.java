@@ -0,0 +1,69 @@
+package com.proyecto.StoreCollection.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización común de los índices de búsqueda: minúsculas, sin tildes y con cualquier
+ * separador (guiones, puntuación, espacios repetidos) reducido a un solo espacio.
+ * Así "Café-Bar  Ñandú" y "cafe bar nandu" se indexan y buscan igual.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private TextNormalizer() {
+    }
+
+    public static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) return "";
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+
+        StringBuilder sb = new StringBuilder(sinTildes.length());
+        boolean espacio = false;
+        for (int i = 0; i < sinTildes.length(); i++) {
+            char c = sinTildes.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (espacio && sb.length() > 0) sb.append(' ');
+                sb.append(Character.toLowerCase(c));
+                espacio = false;
+            } else {
+                espacio = true;
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /** Palabras de un texto ya normalizado. */
+    public static List<String> tokens(String normalizado) {
+        List<String> tokens = new ArrayList<>();
+        if (normalizado.isEmpty()) return tokens;
+        int inicio = 0;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            if (i == normalizado.length() || normalizado.charAt(i) == ' ') {
+                if (i > inicio) tokens.add(normalizado.substring(inicio, i));
+                inicio = i + 1;
+            }
+        }
+        return tokens;
+    }
+
+    /** Subcadenas de largo n de un texto ya normalizado (el texto completo si es más corto). */
+    public static Set<String> ngramas(String normalizado, int n) {
+        Set<String> ngramas = new LinkedHashSet<>();
+        if (normalizado.isEmpty()) return ngramas;
+        if (normalizado.length() <= n) {
+            ngramas.add(normalizado);
+            return ngramas;
+        }
+        for (int i = 0; i + n <= normalizado.length(); i++) {
+            ngramas.add(normalizado.substring(i, i + n));
+        }
+        return ngramas;
+    }
+}
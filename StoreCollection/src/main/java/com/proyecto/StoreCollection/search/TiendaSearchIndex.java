@@ -0,0 +1,241 @@
+package com.proyecto.StoreCollection.search;
+
+import com.proyecto.StoreCollection.dto.response.TiendaResponse;
+import com.proyecto.StoreCollection.event.TiendaModificadaEvent;
+import com.proyecto.StoreCollection.service.TiendaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de las tiendas públicas activas para el buscador del directorio.
+ * Indexa todas las subcadenas de 1 a 3 caracteres del nombre y del slug normalizados:
+ * una búsqueda corta es una sola consulta al mapa y una larga es la intersección de sus
+ * trigramas, verificada solo sobre esos candidatos. La BD se lee al iniciar, por tienda en
+ * cada TiendaModificadaEvent y en una recarga completa periódica.
+ */
+@Slf4j
+@Component
+public class TiendaSearchIndex {
+
+    private static final int N = 3;
+
+    private final TiendaService tiendaService;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Integer, Entrada> entradas = new HashMap<>();
+    private Map<String, Set<Integer>> postings = new HashMap<>();
+    private volatile boolean cargado;
+    // No null mientras recargar() lee la BD: tiendas modificadas en ese lapso
+    private Set<Integer> modificadasDuranteRecarga;
+
+    private record Entrada(TiendaResponse tienda, String nombre, String slug, List<String> tokens) {
+    }
+
+    public TiendaSearchIndex(TiendaService tiendaService) {
+        this.tiendaService = tiendaService;
+    }
+
+    // ======================== BÚSQUEDA ========================
+
+    /**
+     * Coincidencias por subcadena en nombre o slug, ordenadas por relevancia
+     * (nombre exacto, empieza por, alguna palabra empieza por, contiene, solo el slug)
+     * y luego por nombre en el sentido pedido.
+     */
+    public Page<TiendaResponse> buscar(String texto, Pageable pageable, boolean descendente) {
+        asegurarCargado();
+        String q = TextNormalizer.normalizar(texto);
+        if (q.isEmpty()) return Page.empty(pageable);
+
+        List<Resultado> resultados = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Integer id : candidatos(q)) {
+                Entrada e = entradas.get(id);
+                int puntaje = e != null ? puntaje(e, q) : -1;
+                if (puntaje >= 0) resultados.add(new Resultado(e.tienda(), puntaje));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Comparator<String> porNombre = descendente
+                ? String.CASE_INSENSITIVE_ORDER.reversed()
+                : String.CASE_INSENSITIVE_ORDER;
+        resultados.sort(Comparator.comparingInt(Resultado::puntaje)
+                .thenComparing(r -> r.tienda().getNombre(), porNombre)
+                .thenComparing(r -> r.tienda().getId()));
+
+        int desde = (int) Math.min(pageable.getOffset(), resultados.size());
+        int hasta = Math.min(desde + pageable.getPageSize(), resultados.size());
+        List<TiendaResponse> pagina = resultados.subList(desde, hasta).stream()
+                .map(Resultado::tienda)
+                .toList();
+        return new PageImpl<>(pagina, pageable, resultados.size());
+    }
+
+    private record Resultado(TiendaResponse tienda, int puntaje) {
+    }
+
+    // Con lock de lectura tomado
+    private Set<Integer> candidatos(String q) {
+        if (q.length() <= N) {
+            return postings.getOrDefault(q, Collections.emptySet());
+        }
+        List<Set<Integer>> listas = new ArrayList<>();
+        for (String trigrama : TextNormalizer.ngramas(q, N)) {
+            Set<Integer> ids = postings.get(trigrama);
+            if (ids == null) return Collections.emptySet();
+            listas.add(ids);
+        }
+        listas.sort(Comparator.comparingInt(Set::size));
+        Set<Integer> resultado = new HashSet<>(listas.get(0));
+        for (int i = 1; i < listas.size() && !resultado.isEmpty(); i++) {
+            resultado.retainAll(listas.get(i));
+        }
+        return resultado;
+    }
+
+    private static int puntaje(Entrada e, String q) {
+        if (e.nombre().equals(q)) return 0;
+        if (e.nombre().startsWith(q)) return 1;
+        for (String token : e.tokens()) {
+            if (token.startsWith(q)) return 2;
+        }
+        if (e.nombre().contains(q)) return 3;
+        if (e.slug().contains(q)) return 4;
+        return -1;
+    }
+
+    // ======================== MANTENIMIENTO ========================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        try {
+            recargar();
+        } catch (Exception e) {
+            log.warn("No se pudo cargar el índice de tiendas al iniciar: {}", e.getMessage());
+        }
+    }
+
+    // Red de seguridad por si alguna tienda cambió sin publicar TiendaModificadaEvent
+    @Scheduled(fixedDelayString = "${app.busqueda.tiendas.recarga-ms:900000}",
+            initialDelayString = "${app.busqueda.tiendas.recarga-ms:900000}")
+    public synchronized void recargar() {
+        lock.writeLock().lock();
+        try {
+            modificadasDuranteRecarga = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Set<Integer> pendientes;
+        try {
+            List<TiendaResponse> activas = tiendaService.findAllPublicasActivas(Pageable.unpaged()).getContent();
+
+            Map<Integer, Entrada> nuevasEntradas = new HashMap<>(activas.size() * 2);
+            Map<String, Set<Integer>> nuevosPostings = new HashMap<>();
+            for (TiendaResponse t : activas) {
+                Entrada e = entrada(t);
+                nuevasEntradas.put(t.getId(), e);
+                indexar(nuevosPostings, t.getId(), e);
+            }
+
+            lock.writeLock().lock();
+            try {
+                entradas = nuevasEntradas;
+                postings = nuevosPostings;
+                cargado = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Índice de tiendas recargado: {} tiendas", nuevasEntradas.size());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendientes = modificadasDuranteRecarga;
+                modificadasDuranteRecarga = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Lo que cambió mientras se leía la BD pudo quedar con datos viejos en la copia nueva
+        pendientes.forEach(this::actualizar);
+    }
+
+    // Alta, edición, activar/desactivar o baja: se vuelve a leer solo esa tienda
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTiendaModificada(TiendaModificadaEvent event) {
+        if (event.tiendaId() != null) actualizar(event.tiendaId());
+    }
+
+    private void actualizar(Integer tiendaId) {
+        TiendaResponse tienda = tiendaService.findPublicaActivaById(tiendaId).orElse(null);
+
+        lock.writeLock().lock();
+        try {
+            if (modificadasDuranteRecarga != null) modificadasDuranteRecarga.add(tiendaId);
+            Entrada anterior = entradas.remove(tiendaId);
+            if (anterior != null) desindexar(tiendaId, anterior);
+            if (tienda != null) {
+                Entrada nueva = entrada(tienda);
+                entradas.put(tienda.getId(), nueva);
+                indexar(postings, tienda.getId(), nueva);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void asegurarCargado() {
+        if (cargado) return;
+        synchronized (this) {
+            if (!cargado) recargar();
+        }
+    }
+
+    private static Entrada entrada(TiendaResponse t) {
+        String nombre = TextNormalizer.normalizar(t.getNombre());
+        return new Entrada(t, nombre, TextNormalizer.normalizar(t.getSlug()), TextNormalizer.tokens(nombre));
+    }
+
+    private static Set<String> ngramasDe(Entrada e) {
+        Set<String> ngramas = new HashSet<>();
+        for (int n = 1; n <= N; n++) {
+            ngramas.addAll(TextNormalizer.ngramas(e.nombre(), n));
+            ngramas.addAll(TextNormalizer.ngramas(e.slug(), n));
+        }
+        return ngramas;
+    }
+
+    private static void indexar(Map<String, Set<Integer>> postings, Integer id, Entrada e) {
+        for (String ngrama : ngramasDe(e)) {
+            postings.computeIfAbsent(ngrama, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void desindexar(Integer id, Entrada e) {
+        for (String ngrama : ngramasDe(e)) {
+            Set<Integer> ids = postings.get(ngrama);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) postings.remove(ngrama);
+        }
+    }
+}
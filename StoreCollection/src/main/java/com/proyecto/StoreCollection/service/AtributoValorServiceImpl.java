@@ -78,8 +78,7 @@ public class AtributoValorServiceImpl implements AtributoValorService {
             Integer atributoId, String tiendaSlug) {
 
         // TenantFilter ya garantiza que solo ve valores de esa tienda
-        return valorRepository.findAllByTenant().stream()
-                .filter(v -> v.getAtributo().getId().equals(atributoId))
+        return valorRepository.findByAtributoIdSafe(atributoId).stream()
                 .map(this::toResponse)
                 .toList();
     }
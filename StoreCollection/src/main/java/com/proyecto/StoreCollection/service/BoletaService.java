@@ -5,6 +5,9 @@ import com.proyecto.StoreCollection.dto.response.BoletaResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
+import java.util.List;
+
 public interface BoletaService {
 
     // Listado paginado - general (solo ADMIN)
@@ -22,6 +25,10 @@ public interface BoletaService {
 
     // Obtención individual con verificación de permisos
     BoletaResponse findByIdConPermisos(Integer id);
+    // Sin verificación de permisos: solo para procesos internos (ej. generación de facturas)
+    BoletaResponse findByIdParaFactura(Integer id);
+    // Boletas atendidas de la tienda entre dos fechas (inclusive), para exportar sus facturas
+    List<BoletaResponse> findAtendidasParaExportacion(Integer tiendaId, LocalDate desde, LocalDate hasta);
     BoletaResponse crearBoletaAdmin(BoletaAdminRequest request);
     // Cambio de estado con lógica de negocio (deducción de stock)
     BoletaResponse actualizarEstado(Integer id, String estado);
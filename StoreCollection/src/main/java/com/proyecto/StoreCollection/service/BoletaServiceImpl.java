@@ -4,9 +4,15 @@ import com.proyecto.StoreCollection.Exceptions.MissingEmailConfigException;
 import com.proyecto.StoreCollection.dto.request.BoletaAdminRequest;
 import com.proyecto.StoreCollection.dto.response.*;
 import com.proyecto.StoreCollection.entity.*;
+import com.proyecto.StoreCollection.event.BoletaAtendidaEvent;
+import com.proyecto.StoreCollection.event.BoletaEstadoCambiadoEvent;
+import com.proyecto.StoreCollection.event.CatalogoModificadoEvent;
 import com.proyecto.StoreCollection.repository.*;
+import com.proyecto.StoreCollection.service.WhatsappMensajeTemplate.Escape;
+import com.proyecto.StoreCollection.service.WhatsappMensajeTemplate.Fragmento;
 import com.proyecto.StoreCollection.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
@@ -17,16 +23,18 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 
 
 import java.util.Properties;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -35,11 +43,16 @@ import java.util.stream.Stream;
 @Transactional
 public class BoletaServiceImpl implements BoletaService {
 
+    private static final int MAX_DIAS_EXPORTACION = 31;
+
     private final BoletaRepository boletaRepository;
     private final ProductoVarianteRepository varianteRepository;
-    private final PdfService pdfService;
     private final TiendaRepository tiendaRepository;
     private final CarritoService carritoService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BoletaDetalleRepository boletaDetalleRepository;
+    private final WhatsappMensajeTemplate whatsappTemplate;
+    private final ReservaStockLedger reservaLedger;
     // ───────────────────────────────────────────────────────────────
     // Listados paginados
     // ───────────────────────────────────────────────────────────────
@@ -57,6 +70,36 @@ public class BoletaServiceImpl implements BoletaService {
         return boletaRepository.findByTiendaId(tiendaId, pageable).map(this::toResponse);
     }
     // ===================== ENVÍO DE CONFIRMACIÓN AL CLIENTE POR WHATSAPP =====================
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    // Partes fijas del mensaje, codificadas una sola vez
+    private static final Fragmento HOLA = Fragmento.de("¡Hola *");
+    private static final Fragmento GRACIAS = Fragmento.de("*!\nGracias por tu compra en *");
+    private static final Fragmento PEDIDO = Fragmento.de("* 🛍️\n\n📋 *PEDIDO #");
+    private static final Fragmento FECHA = Fragmento.de("*\n📅 ");
+    private static final Fragmento PRODUCTOS = Fragmento.de("\n\n🛒 *PRODUCTOS*\n");
+    private static final Fragmento ITEM = Fragmento.de(". *");
+    private static final Fragmento FIN_NOMBRE = Fragmento.de("*\n");
+    private static final Fragmento OPCIONES = Fragmento.de("   Opciones: ");
+    private static final Fragmento SEPARADOR_OPCION = Fragmento.de(": ");
+    private static final Fragmento COMA = Fragmento.de(", ");
+    private static final Fragmento SALTO = Fragmento.de("\n");
+    private static final Fragmento CANTIDAD = Fragmento.de("   Cantidad: ");
+    private static final Fragmento POR = Fragmento.de(" × S/ ");
+    private static final Fragmento IGUAL = Fragmento.de(" = S/ ");
+    private static final Fragmento FIN_ITEM = Fragmento.de("\n\n");
+    private static final Fragmento TOTAL = Fragmento.de("━━━━━━━━━━━━━━━━━━━\n💰 *TOTAL: S/ ");
+    private static final Fragmento ENTREGA = Fragmento.de("*\n\n🚚 *DETALLES DE ENTREGA*\nTipo: ");
+    private static final Fragmento DIRECCION = Fragmento.de("Dirección: ");
+    private static final Fragmento REFERENCIA = Fragmento.de("Referencia: ");
+    private static final Fragmento DISTRITO = Fragmento.de("Distrito: ");
+    private static final Fragmento UBICACION = Fragmento.de("Ubicación: ");
+    private static final Fragmento A_COORDINAR = Fragmento.de("A coordinar contigo directamente 📲\n");
+    private static final Fragmento PIE = Fragmento.de("\nTe contactaremos pronto para coordinar todo.\n" +
+            "Si todo está correcto, responde *OK* o dime si necesitas algún cambio.\n\n" +
+            "¡Gracias por confiar en nosotros! ❤️\n");
+
     @Override
     @Transactional(readOnly = true)
     public String generarMensajeConfirmacionCliente(Integer boletaId) {
@@ -74,68 +117,73 @@ public class BoletaServiceImpl implements BoletaService {
             throw new IllegalStateException("Número de teléfono inválido: " + boleta.getCompradorNumero());
         }
 
-        StringBuilder msg = new StringBuilder();
+        WhatsappMensajeTemplate.FragmentosTienda tienda =
+                whatsappTemplate.fragmentos(boleta.getTienda().getId(), boleta::getTienda);
 
-        msg.append("¡Hola *").append(escapeMarkdown(boleta.getCompradorNombre() != null ? boleta.getCompradorNombre() : "Cliente"))
-                .append("*!\n")
-                .append("Gracias por tu compra en *").append(escapeMarkdown(boleta.getTienda().getNombre())).append("* 🛍️\n\n");
+        WhatsappMensajeTemplate.Mensaje msg = whatsappTemplate.nuevoMensaje()
+                .add(HOLA).escapado(boleta.getCompradorNombre() != null ? boleta.getCompradorNombre() : "Cliente", Escape.CON_CORCHETES)
+                .add(GRACIAS).add(tienda.nombreEscapado())
+                .add(PEDIDO).numero(boleta.getId())
+                .add(FECHA).texto(boleta.getFecha().format(FORMATO_FECHA))
+                .add(PRODUCTOS);
 
-        msg.append("📋 *PEDIDO #").append(boleta.getId()).append("*\n")
-                .append("📅 ").append(boleta.getFecha().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))).append("\n\n");
-
-        // Productos
-        msg.append("🛒 *PRODUCTOS*\n");
+        // Productos: una sola consulta para las líneas con sus atributos
         int itemNum = 1;
-        for (BoletaDetalle d : boleta.getDetalles()) {
-            ProductoVariante v = d.getVariante();
-            msg.append(itemNum++).append(". *").append(escapeMarkdown(v.getProducto().getNombre())).append("*\n");
-
-            if (v.getAtributos() != null && !v.getAtributos().isEmpty()) {
-                msg.append("   Opciones: ")
-                        .append(v.getAtributos().stream()
-                                .map(av -> escapeMarkdown((av.getAtributo() != null ? av.getAtributo().getNombre() : "") + ": " + av.getValor()))
-                                .collect(Collectors.joining(", ")))
-                        .append("\n");
+        Integer detalleActual = null;
+        boolean primeraOpcion = true;
+        Object[] pendiente = null;
+        for (Object[] row : boletaDetalleRepository.findLineasMensajeByBoletaId(boleta.getId())) {
+            Integer detalleId = (Integer) row[0];
+            if (!detalleId.equals(detalleActual)) {
+                if (pendiente != null) cerrarLinea(msg, pendiente, primeraOpcion);
+                detalleActual = detalleId;
+                pendiente = row;
+                primeraOpcion = true;
+                msg.numero(itemNum++).add(ITEM).escapado((String) row[4], Escape.CON_CORCHETES).add(FIN_NOMBRE);
+            }
+            if (row[6] != null) {
+                msg.add(primeraOpcion ? OPCIONES : COMA)
+                        .escapado(row[5] != null ? (String) row[5] : "", Escape.CON_CORCHETES)
+                        .add(SEPARADOR_OPCION).escapado((String) row[6], Escape.CON_CORCHETES);
+                primeraOpcion = false;
             }
-
-            msg.append("   Cantidad: ").append(d.getCantidad())
-                    .append(" × S/ ").append(formatPrice(d.getPrecioUnitario()))
-                    .append(" = S/ ").append(formatPrice(d.getSubtotal())).append("\n\n");
         }
+        if (pendiente != null) cerrarLinea(msg, pendiente, primeraOpcion);
 
-        msg.append("━━━━━━━━━━━━━━━━━━━\n")
-                .append("💰 *TOTAL: S/ ").append(formatPrice(boleta.getTotal())).append("*\n\n");
+        msg.add(TOTAL).precio(boleta.getTotal());
 
         // Detalles de entrega
-        msg.append("🚚 *DETALLES DE ENTREGA*\n");
-        msg.append("Tipo: ").append(boleta.getTipoEntrega() != null ? boleta.getTipoEntrega().name() : "No especificado").append("\n");
+        msg.add(ENTREGA).texto(boleta.getTipoEntrega() != null ? boleta.getTipoEntrega().name() : "No especificado").add(SALTO);
 
         if (StringUtils.hasText(boleta.getDireccionEnvio())) {
-            msg.append("Dirección: ").append(escapeMarkdown(boleta.getDireccionEnvio())).append("\n");
+            msg.add(DIRECCION).escapado(boleta.getDireccionEnvio(), Escape.CON_CORCHETES).add(SALTO);
             if (StringUtils.hasText(boleta.getReferenciaEnvio())) {
-                msg.append("Referencia: ").append(escapeMarkdown(boleta.getReferenciaEnvio())).append("\n");
+                msg.add(REFERENCIA).escapado(boleta.getReferenciaEnvio(), Escape.CON_CORCHETES).add(SALTO);
             }
             if (StringUtils.hasText(boleta.getDistrito())) {
-                msg.append("Distrito: ").append(escapeMarkdown(boleta.getDistrito())).append("\n");
+                msg.add(DISTRITO).escapado(boleta.getDistrito(), Escape.CON_CORCHETES).add(SALTO);
             }
             String ubigeo = Stream.of(boleta.getProvincia(), boleta.getDepartamento())
                     .filter(StringUtils::hasText)
                     .collect(Collectors.joining(", "));
             if (!ubigeo.isEmpty()) {
-                msg.append("Ubicación: ").append(ubigeo).append("\n");
+                msg.add(UBICACION).texto(ubigeo).add(SALTO);
             }
         } else {
-            msg.append("A coordinar contigo directamente 📲\n");
+            msg.add(A_COORDINAR);
         }
 
-        msg.append("\nTe contactaremos pronto para coordinar todo.\n");
-        msg.append("Si todo está correcto, responde *OK* o dime si necesitas algún cambio.\n\n");
+        msg.add(PIE).add(tienda.nombre());
 
-        msg.append("¡Gracias por confiar en nosotros! ❤️\n")
-                .append(boleta.getTienda().getNombre());
+        return msg.url(telefonoCliente);
+    }
 
-        String encoded = URLEncoder.encode(msg.toString(), StandardCharsets.UTF_8);
-        return "https://wa.me/" + telefonoCliente + "?text=" + encoded;
+    // Cierra la línea de un detalle: opciones (si hubo) y cantidad × precio = subtotal
+    private void cerrarLinea(WhatsappMensajeTemplate.Mensaje msg, Object[] detalle, boolean sinOpciones) {
+        if (!sinOpciones) msg.add(SALTO);
+        msg.add(CANTIDAD).numero(detalle[1] != null ? (Integer) detalle[1] : 0)
+                .add(POR).precio((BigDecimal) detalle[2])
+                .add(IGUAL).precio((BigDecimal) detalle[3]).add(FIN_ITEM);
     }
 // ===================== MÉTODOS AUXILIARES (agregar al final de la clase) =====================
 
@@ -149,18 +197,6 @@ public class BoletaServiceImpl implements BoletaService {
         return (cleaned.length() >= 9 && cleaned.length() <= 15) ? cleaned : null;
     }
 
-    private String escapeMarkdown(String text) {
-        if (text == null) return "";
-        return text.replace("_", "\\_")
-                .replace("*", "\\*")
-                .replace("`", "\\`")
-                .replace("[", "\\[")
-                .replace("]", "\\]");
-    }
-
-    private String formatPrice(BigDecimal price) {
-        return price != null ? String.format(Locale.forLanguageTag("es-PE"), "%.2f", price) : "0.00";
-    }
 
 
 
@@ -208,6 +244,44 @@ public class BoletaServiceImpl implements BoletaService {
         return toResponse(boleta);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public BoletaResponse findByIdParaFactura(Integer id) {
+        return boletaRepository.findById(id)
+                .map(this::toResponse)
+                .orElseThrow(() -> new RuntimeException("Boleta no encontrada: " + id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BoletaResponse> findAtendidasParaExportacion(Integer tiendaId, LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+        if (desde.plusDays(MAX_DIAS_EXPORTACION).isBefore(hasta)) {
+            throw new IllegalArgumentException("El rango no puede superar " + MAX_DIAS_EXPORTACION + " días");
+        }
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean esAdmin = auth.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        if (!esAdmin) {
+            // El dueño solo exporta su propia tienda
+            tiendaId = TenantContext.getTenantId();
+            if (tiendaId == null) {
+                throw new AccessDeniedException("No tienes una tienda asignada");
+            }
+        } else if (tiendaId == null) {
+            throw new IllegalArgumentException("tiendaId es obligatorio");
+        }
+
+        return boletaRepository.findParaExportacion(tiendaId, Boleta.EstadoBoleta.ATENDIDA,
+                        desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay())
+                .stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
     private void verificarPermisosSobreBoleta(Boleta boleta) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         boolean esAdmin = auth.getAuthorities().stream()
@@ -276,43 +350,67 @@ public class BoletaServiceImpl implements BoletaService {
         Boleta boletaGuardada = boletaRepository.save(boleta);
         BoletaResponse response = toResponse(boletaGuardada);
 
-        // Generar PDF solo al pasar a ATENDIDA por primera vez
-        if (nuevoEstado == Boleta.EstadoBoleta.ATENDIDA && estadoAnterior == Boleta.EstadoBoleta.PENDIENTE) {
-            try {
-                byte[] pdfBytes = pdfService.generarFacturaPdf(response);
-                System.out.println("PDF generado para boleta " + boletaGuardada.getId());
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        if (estadoAnterior != nuevoEstado) {
+            eventPublisher.publishEvent(BoletaEstadoCambiadoEvent.de(boletaGuardada, estadoAnterior));
         }
 
+        // El PDF se genera después del commit (FacturaPdfGenerator escucha BoletaAtendidaEvent)
+
         return response;
     }
 
     // === MÉTODOS AUXILIARES PARA REUTILIZAR LÓGICA ===
+    // Un solo UPDATE condicional (stock >= cantidad) para todas las líneas: sin lecturas
+    // previas en Java, dos boletas atendidas a la vez no pueden dejar stock negativo
     private void descontarStock(Boleta boleta) {
-        for (BoletaDetalle detalle : boleta.getDetalles()) {
-            ProductoVariante variante = detalle.getVariante();
-            int stockActual = variante.getStock();
-
-            if (stockActual < detalle.getCantidad()) {
-                throw new IllegalStateException(
-                        "Stock insuficiente para '" + variante.getProducto().getNombre() +
-                                "' (SKU: " + variante.getSku() + "). Disponible: " + stockActual +
-                                ", requerido: " + detalle.getCantidad());
-            }
+        Map<Integer, Integer> cantidades = cantidadesPorVariante(boleta);
+        int actualizadas = varianteRepository.descontarStockSiAlcanza(cantidades);
 
-            variante.setStock(stockActual - detalle.getCantidad());
-            varianteRepository.save(variante);
+        if (actualizadas < cantidades.size()) {
+            // La excepción hace rollback de las variantes que sí se descontaron
+            throw new IllegalStateException(mensajeStockInsuficiente(boleta, cantidades));
         }
+        publicarCambioDeStock(boleta);
+        // Tras el commit se sueltan las reservas del carrito que originó el pedido
+        eventPublisher.publishEvent(new BoletaAtendidaEvent(boleta.getId(), boleta.getTienda().getId(),
+                boleta.getSessionId(), Map.copyOf(cantidades)));
     }
 
     private void devolverStock(Boleta boleta) {
+        varianteRepository.devolverStock(cantidadesPorVariante(boleta));
+        publicarCambioDeStock(boleta);
+    }
+
+    // Una variante puede venir en varias líneas: se suman
+    private Map<Integer, Integer> cantidadesPorVariante(Boleta boleta) {
+        Map<Integer, Integer> cantidades = new LinkedHashMap<>();
+        for (BoletaDetalle detalle : boleta.getDetalles()) {
+            cantidades.merge(detalle.getVariante().getId(), detalle.getCantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
+
+    private String mensajeStockInsuficiente(Boleta boleta, Map<Integer, Integer> cantidades) {
+        // El repositorio relee las variantes tras el UPDATE: su stock es el actual de la BD
         for (BoletaDetalle detalle : boleta.getDetalles()) {
             ProductoVariante variante = detalle.getVariante();
-            variante.setStock(variante.getStock() + detalle.getCantidad());
-            varianteRepository.save(variante);
+            int requerido = cantidades.get(variante.getId());
+            if (variante.getStock() < requerido) {
+                return "Stock insuficiente para '" + variante.getProducto().getNombre() +
+                        "' (SKU: " + variante.getSku() + "). Disponible: " + variante.getStock() +
+                        ", requerido: " + requerido;
+            }
         }
+        return "Stock insuficiente: otro pedido acaba de tomar el stock de alguno de los productos. " +
+                "Refresca e inténtalo de nuevo.";
+    }
+
+    // El catálogo público muestra stockTotal: hay que invalidar los productos tocados
+    private void publicarCambioDeStock(Boleta boleta) {
+        Set<Integer> productoIds = boleta.getDetalles().stream()
+                .map(d -> d.getVariante().getProducto().getId())
+                .collect(Collectors.toSet());
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(boleta.getTienda().getId(), productoIds));
     }
 
     @Transactional
@@ -330,8 +428,11 @@ public class BoletaServiceImpl implements BoletaService {
                 .filter(Tienda::getActivo)
                 .orElseThrow(() -> new IllegalArgumentException("Tienda no encontrada o inactiva"));
 
+        String sessionId = StringUtils.hasText(request.getSessionId()) ? request.getSessionId().trim() : null;
+
         BigDecimal total = BigDecimal.ZERO;
         List<BoletaDetalle> detalles = new ArrayList<>();
+        Map<Integer, Integer> pedidas = new HashMap<>();
 
         for (BoletaAdminRequest.ItemRequest item : request.getItems()) {
             ProductoVariante variante = varianteRepository.findById(item.getVarianteId())
@@ -339,10 +440,13 @@ public class BoletaServiceImpl implements BoletaService {
                     .filter(v -> v.getTienda().getId().equals(tenantId))
                     .orElseThrow(() -> new RuntimeException("Variante no encontrada, inactiva o no pertenece a esta tienda"));
 
-            if (variante.getStock() < item.getCantidad()) {
+            // Lo reservado por carritos que aún no hicieron el pedido no se puede vender aquí
+            int pedida = pedidas.merge(variante.getId(), item.getCantidad(), Integer::sum);
+            int disponible = reservaLedger.disponibleParaVenta(variante.getId(), sessionId, variante.getStock());
+            if (disponible < pedida) {
                 throw new IllegalStateException(
                         "Stock insuficiente para " + variante.getProducto().getNombre() +
-                                " (disponible: " + variante.getStock() + ")"
+                                " (disponible: " + disponible + ")"
                 );
             }
 
@@ -359,6 +463,7 @@ public class BoletaServiceImpl implements BoletaService {
 
         Boleta boleta = new Boleta();
         boleta.setTienda(tienda);
+        boleta.setSessionId(sessionId);
         boleta.setTotal(total);
         boleta.setEstado(Boleta.EstadoBoleta.ATENDIDA);
         boleta.setFecha(LocalDateTime.now());
@@ -376,6 +481,7 @@ public class BoletaServiceImpl implements BoletaService {
         Boleta boletaGuardada = boletaRepository.save(boleta);
 
         descontarStock(boletaGuardada);
+        eventPublisher.publishEvent(BoletaEstadoCambiadoEvent.de(boletaGuardada, null));
 
         return toResponse(boletaGuardada);
     }
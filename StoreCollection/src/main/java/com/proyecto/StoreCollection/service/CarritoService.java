@@ -2,6 +2,7 @@
 package com.proyecto.StoreCollection.service;
 
 import com.proyecto.StoreCollection.dto.request.CarritoRequest;
+import com.proyecto.StoreCollection.dto.request.CarritoSincronizarRequest;
 import com.proyecto.StoreCollection.dto.request.BoletaRequest;
 import com.proyecto.StoreCollection.dto.response.BoletaResponse;
 import com.proyecto.StoreCollection.dto.response.CarritoResponse;
@@ -15,5 +16,6 @@ public interface CarritoService {
     void limpiarCarrito(String sessionId, Integer tiendaId);
     CarritoResponse crear(CarritoRequest request);
     CarritoResponse actualizar(Integer carritoId, CarritoRequest request);
+    List<CarritoResponse> sincronizar(String sessionId, Integer tiendaId, CarritoSincronizarRequest request);
     String checkoutWhatsapp(BoletaRequest request);
 }
\ No newline at end of file
@@ -1,102 +1,118 @@
 package com.proyecto.StoreCollection.service;
 
+import com.proyecto.StoreCollection.carrito.CarritoItem;
+import com.proyecto.StoreCollection.carrito.CarritoStore;
+import com.proyecto.StoreCollection.carrito.VarianteCarrito;
+import com.proyecto.StoreCollection.carrito.VarianteCarritoCache;
 import com.proyecto.StoreCollection.dto.request.BoletaRequest;
 import com.proyecto.StoreCollection.dto.request.CarritoRequest;
+import com.proyecto.StoreCollection.dto.request.CarritoSincronizarRequest;
 import com.proyecto.StoreCollection.dto.response.*;
 import com.proyecto.StoreCollection.entity.*;
 import com.proyecto.StoreCollection.repository.*;
+import com.proyecto.StoreCollection.service.WhatsappMensajeTemplate.Escape;
+import com.proyecto.StoreCollection.service.WhatsappMensajeTemplate.Fragmento;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Sin transacción propia: los clics del carrito resuelven las variantes desde VarianteCarritoCache
+ * y el store decide si toca la base (JpaCarritoStore abre su transacción por operación).
+ */
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class CarritoServiceImpl implements CarritoService {
 
-    private final CarritoRepository repository;
-    private final ProductoVarianteRepository varianteRepository;
+    private final CarritoStore carritoStore;
+    private final VarianteCarritoCache varianteCarritoCache;
     private final TiendaRepository tiendaRepository;
+    private final ReservaStockLedger reservaStockLedger;
+    private final WhatsappMensajeTemplate whatsappTemplate;
 
     // ===================== CARRITO =====================
 
     @Override
-    @Transactional(readOnly = true)
     public List<CarritoResponse> findBySessionId(String sessionId, Integer tiendaId) {
         if (tiendaId == null) {
             throw new IllegalArgumentException("tiendaId es requerido");
         }
-        return repository.findBySessionIdAndTiendaId(sessionId, tiendaId)
-                .stream()
-                .map(this::toResponse)
+        List<CarritoItem> items = carritoStore.listar(sessionId, tiendaId);
+        Map<Integer, VarianteCarrito> variantes = varianteCarritoCache.get(items.stream().map(CarritoItem::varianteId).toList());
+        return items.stream()
+                .filter(item -> variantes.containsKey(item.varianteId()))
+                .map(item -> toResponse(item, variantes.get(item.varianteId())))
                 .collect(Collectors.toList());
     }
 
     @Override
-    @Transactional(readOnly = true)
     public CarritoResponse findById(Integer id) {
-        Carrito carrito = repository.findById(id)
+        CarritoItem item = carritoStore.buscar(id)
                 .orElseThrow(() -> new RuntimeException("Carrito no encontrado: " + id));
-        return toResponse(carrito);
+        VarianteCarrito variante = varianteCarritoCache.get(item.varianteId());
+        if (variante == null) {
+            throw new RuntimeException("Variante no encontrada: " + item.varianteId());
+        }
+        return toResponse(item, variante);
     }
 
     @Override
-    @Transactional
     public CarritoResponse crear(CarritoRequest request) {
-        ProductoVariante variante = varianteRepository.findById(request.getVarianteId())
-                .orElseThrow(() -> new RuntimeException("Variante no encontrada: " + request.getVarianteId()));
-
-        Tienda tienda = variante.getProducto().getTienda();
-
-        Carrito carrito = new Carrito();
-        carrito.setSessionId(request.getSessionId());
-        carrito.setTienda(tienda);
-        carrito.setVariante(variante);
-        carrito.setCantidad(request.getCantidad());
-
-        Carrito saved = repository.save(carrito);
-        return toResponse(saved);
+        VarianteCarrito variante = variante(request.getVarianteId());
+
+        CarritoItem item = carritoStore.agregar(request.getSessionId(), variante.tiendaId(),
+                variante.id(), request.getCantidad());
+        try {
+            reservaStockLedger.reservar(variante.id(), item.id(), item.sessionId(),
+                    item.cantidad(), variante.stock());
+        } catch (IllegalStateException e) {
+            // Sin stock libre el item no se queda en el carrito
+            carritoStore.eliminar(item.id());
+            throw e;
+        }
+        return toResponse(item, variante);
     }
 
     @Override
-    @Transactional
     public CarritoResponse actualizar(Integer carritoId, CarritoRequest request) {
         // Validación estricta del ID
         if (carritoId == null || carritoId <= 0) {
             throw new IllegalArgumentException("El ID del carrito es requerido y debe ser un número positivo válido para actualizar cantidad");
         }
 
-        Carrito carrito = repository.findById(carritoId)
+        CarritoItem item = carritoStore.buscar(carritoId)
                 .orElseThrow(() -> new IllegalArgumentException("Carrito no encontrado con ID: " + carritoId));
 
-        ProductoVariante variante = varianteRepository.findById(request.getVarianteId())
-                .orElseThrow(() -> new RuntimeException("Variante no encontrada: " + request.getVarianteId()));
+        VarianteCarrito variante = variante(request.getVarianteId());
 
         // Seguridad: no permitir cambiar variante o tienda
-        if (!carrito.getVariante().getId().equals(variante.getId())) {
+        if (!item.varianteId().equals(variante.id())) {
             throw new IllegalStateException("No se puede cambiar la variante de un item existente");
         }
-        if (!carrito.getTienda().getId().equals(variante.getProducto().getTienda().getId())) {
+        if (!item.tiendaId().equals(variante.tiendaId())) {
             throw new IllegalStateException("No se puede cambiar la tienda de un item existente");
         }
 
-        carrito.setCantidad(request.getCantidad());
+        reservaStockLedger.reservar(variante.id(), item.id(), item.sessionId(),
+                request.getCantidad(), variante.stock());
 
-        Carrito saved = repository.save(carrito);
-        return toResponse(saved);
+        CarritoItem saved = carritoStore.actualizarCantidad(carritoId, request.getCantidad());
+        return toResponse(saved, variante);
     }
     @Override
     public void deleteById(Integer id) {
-        repository.deleteById(id);
+        carritoStore.eliminar(id)
+                .ifPresent(item -> reservaStockLedger.liberar(item.varianteId(), item.id()));
     }
 
     @Override
@@ -104,138 +120,204 @@ public class CarritoServiceImpl implements CarritoService {
         if (tiendaId == null) {
             throw new IllegalArgumentException("tiendaId es requerido para limpiar carrito");
         }
-        repository.deleteBySessionIdAndTiendaId(sessionId, tiendaId);
+        carritoStore.vaciar(sessionId, tiendaId)
+                .forEach(item -> reservaStockLedger.liberar(item.varianteId(), item.id()));
     }
 
-    // ===================== CHECKOUT ONLINE =====================
-
-
+    // Un request con el carrito completo: diff contra lo guardado, variantes desde la caché
+    @Override
+    public List<CarritoResponse> sincronizar(String sessionId, Integer tiendaId, CarritoSincronizarRequest request) {
+        if (tiendaId == null) {
+            throw new IllegalArgumentException("tiendaId es requerido");
+        }
 
+        // Estado deseado por variante (si viene repetida, se suman las cantidades)
+        Map<Integer, Integer> deseado = new LinkedHashMap<>();
+        for (CarritoSincronizarRequest.ItemRequest item : request.getItems()) {
+            deseado.merge(item.getVarianteId(), item.getCantidad(), Integer::sum);
+        }
 
+        Map<Integer, VarianteCarrito> variantes = varianteCarritoCache.get(deseado.keySet());
+        for (Integer varianteId : deseado.keySet()) {
+            VarianteCarrito variante = variantes.get(varianteId);
+            if (variante == null) {
+                throw new RuntimeException("Variante no encontrada: " + varianteId);
+            }
+            if (!tiendaId.equals(variante.tiendaId())) {
+                throw new IllegalStateException("La variante " + varianteId + " no pertenece a esta tienda");
+            }
+        }
 
+        // Diff: se conserva una línea por variante; las repetidas o que ya no están se borran
+        List<CarritoItem> actuales = carritoStore.listar(sessionId, tiendaId);
+        Map<Integer, CarritoItem> conservados = new LinkedHashMap<>();
+        Map<Integer, Integer> cambios = new LinkedHashMap<>();
+        Set<Integer> bajas = new LinkedHashSet<>();
+        for (CarritoItem actual : actuales) {
+            Integer cantidad = deseado.get(actual.varianteId());
+            if (cantidad == null || conservados.containsKey(actual.varianteId())) {
+                bajas.add(actual.id());
+                continue;
+            }
+            conservados.put(actual.varianteId(), actual);
+            if (cantidad != actual.cantidad()) {
+                cambios.put(actual.id(), cantidad);
+            }
+        }
+        Map<Integer, Integer> altas = new LinkedHashMap<>();
+        deseado.forEach((varianteId, cantidad) -> {
+            if (!conservados.containsKey(varianteId)) altas.put(varianteId, cantidad);
+        });
+
+        // Primero las reservas: si falta stock no se escribe nada y no hay nada que revertir
+        List<ReservaStockLedger.Linea> lineas = new ArrayList<>(deseado.size());
+        deseado.forEach((varianteId, cantidad) -> {
+            CarritoItem conservado = conservados.get(varianteId);
+            lineas.add(new ReservaStockLedger.Linea(conservado != null ? conservado.id() : null, varianteId,
+                    cantidad, variantes.get(varianteId).stock()));
+        });
+        ReservaStockLedger.CambioSesion reserva = reservaStockLedger.reservarSesion(sessionId, lineas);
+
+        List<CarritoItem> nuevos;
+        try {
+            nuevos = carritoStore.aplicar(sessionId, tiendaId, altas, cambios, bajas);
+        } catch (RuntimeException e) {
+            reserva.deshacer();
+            throw e;
+        }
+        reserva.confirmar(nuevos.stream().collect(Collectors.toMap(CarritoItem::varianteId, CarritoItem::id)));
 
+        // Las repetidas ya quedaron cubiertas por la reserva de su variante; las que salieron se sueltan
+        actuales.stream()
+                .filter(item -> bajas.contains(item.id()) && !deseado.containsKey(item.varianteId()))
+                .forEach(item -> reservaStockLedger.liberar(item.varianteId(), item.id()));
 
+        List<CarritoItem> resultado = new ArrayList<>(deseado.size());
+        for (CarritoItem item : conservados.values()) {
+            resultado.add(cambios.containsKey(item.id()) ? item.conCantidad(cambios.get(item.id())) : item);
+        }
+        resultado.addAll(nuevos);
 
+        return resultado.stream()
+                .map(item -> toResponse(item, variantes.get(item.varianteId())))
+                .collect(Collectors.toList());
+    }
 
-    private String formatPrice(BigDecimal price) {
-        if (price == null) return "0.00";
-        return String.format(Locale.forLanguageTag("es-PE"), "%.2f", price);
+    private VarianteCarrito variante(Integer varianteId) {
+        VarianteCarrito variante = varianteCarritoCache.get(varianteId);
+        if (variante == null) {
+            throw new RuntimeException("Variante no encontrada: " + varianteId);
+        }
+        return variante;
     }
 
+    // ===================== CHECKOUT ONLINE =====================
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    // Partes fijas del mensaje, codificadas una sola vez
+    private static final Fragmento NUEVO_PEDIDO = Fragmento.de("🛒 *¡NUEVO PEDIDO!*\n*");
+    private static final Fragmento FECHA = Fragmento.de("*\n📅 ");
+    private static final Fragmento PRODUCTOS = Fragmento.de("\n\n📦 *PRODUCTOS*\n\n");
+    private static final Fragmento ITEM = Fragmento.de(". *");
+    private static final Fragmento FIN_NOMBRE = Fragmento.de("*\n");
+    private static final Fragmento OPCIONES = Fragmento.de("   Opciones:\n");
+    private static final Fragmento OPCION = Fragmento.de("      • ");
+    private static final Fragmento SEPARADOR_OPCION = Fragmento.de(": ");
+    private static final Fragmento SALTO = Fragmento.de("\n");
+    private static final Fragmento CANTIDAD = Fragmento.de("   Cantidad: ");
+    private static final Fragmento PRECIO = Fragmento.de(" und.\n   Precio: S/ ");
+    private static final Fragmento SUBTOTAL = Fragmento.de(" → Subtotal: S/ ");
+    private static final Fragmento FIN_ITEM = Fragmento.de("\n\n");
+    private static final Fragmento TOTAL = Fragmento.de("━━━━━━━━━━━━━━━━━━━\n💰 *TOTAL: S/ ");
+    // Mensaje más directo y limpio (sin pedir datos personales de entrada)
+    private static final Fragmento PIE = Fragmento.de("*\n\n" +
+            "Por favor responde con:\n" +
+            "• Dirección completa + referencia\n" +
+            "• Distrito\n" +
+            "• Método de pago\n" +
+            "• Método de entrega\n\n" +
+            "¡Gracias por tu pedido! Te respondo rapidito 🚀");
+
+    // La reserva va al final: si la tienda no existe o no tiene WhatsApp, el stock no queda apartado
     @Override
-    @Transactional(readOnly = true)
     public String checkoutWhatsapp(BoletaRequest req) {
 
-        List<Carrito> items = repository.findBySessionIdAndTiendaIdWithDetails(
-                req.getSessionId(), req.getTiendaId());
+        List<CarritoItem> items = carritoStore.listar(req.getSessionId(), req.getTiendaId());
+        Map<Integer, VarianteCarrito> variantes = varianteCarritoCache.get(items.stream().map(CarritoItem::varianteId).toList());
 
         if (items.isEmpty()) {
             throw new IllegalStateException("El carrito está vacío para esta tienda");
         }
 
-        Tienda tienda = tiendaRepository.findById(req.getTiendaId())
-                .orElseThrow(() -> new IllegalArgumentException("Tienda no encontrada: " + req.getTiendaId()));
+        WhatsappMensajeTemplate.FragmentosTienda tienda = whatsappTemplate.fragmentos(req.getTiendaId(),
+                () -> tiendaRepository.findById(req.getTiendaId())
+                        .orElseThrow(() -> new IllegalArgumentException("Tienda no encontrada: " + req.getTiendaId())));
 
-        String numeroWhats = normalizeWhatsappNumber(tienda.getWhatsapp());
-        if (numeroWhats == null || numeroWhats.length() < 9) {
+        if (tienda.whatsapp() == null) {
             throw new IllegalStateException("Número de WhatsApp de la tienda inválido");
         }
 
-        StringBuilder msg = new StringBuilder();
-
-        msg.append("🛒 *¡NUEVO PEDIDO!*\n")
-                .append("*").append(escapeMarkdown(tienda.getNombre().toUpperCase())).append("*\n")
-                .append("📅 ").append(LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))).append("\n\n")
-
-                .append("📦 *PRODUCTOS*\n\n");
+        WhatsappMensajeTemplate.Mensaje msg = whatsappTemplate.nuevoMensaje()
+                .add(NUEVO_PEDIDO).add(tienda.nombreMayusculasEscapado())
+                .add(FECHA).texto(LocalDateTime.now().format(FORMATO_FECHA))
+                .add(PRODUCTOS);
 
         BigDecimal total = BigDecimal.ZERO;
         int itemNumber = 1;
 
-        for (Carrito item : items) {
-            ProductoVariante v = item.getVariante();
-            if (v == null || v.getProducto() == null) continue;
+        for (CarritoItem item : items) {
+            VarianteCarrito v = variantes.get(item.varianteId());
+            if (v == null) continue;
 
-            BigDecimal precio = v.getPrecio();
-            BigDecimal subtotal = precio.multiply(BigDecimal.valueOf(item.getCantidad()));
+            BigDecimal precio = v.precio();
+            BigDecimal subtotal = precio.multiply(BigDecimal.valueOf(item.cantidad()));
             total = total.add(subtotal);
 
-            msg.append(itemNumber++).append(". *").append(escapeMarkdown(v.getProducto().getNombre())).append("*\n");
+            msg.numero(itemNumber++).add(ITEM).escapado(v.nombreProducto(), Escape.BASICO).add(FIN_NOMBRE);
 
             // Variantes (si existen)
-            if (v.getAtributos() != null && !v.getAtributos().isEmpty()) {
-                msg.append("   Opciones:\n");
-                for (AtributoValor av : v.getAtributos()) {
-                    msg.append("      • ").append(escapeMarkdown(av.getAtributo().getNombre()))
-                            .append(": ").append(escapeMarkdown(av.getValor())).append("\n");
+            if (!v.atributos().isEmpty()) {
+                msg.add(OPCIONES);
+                for (AtributoResponse av : v.atributos()) {
+                    msg.add(OPCION).escapado(av.getNombre(), Escape.BASICO)
+                            .add(SEPARADOR_OPCION).escapado(av.getValor(), Escape.BASICO).add(SALTO);
                 }
             }
 
-            msg.append("   Cantidad: ").append(item.getCantidad()).append(" und.\n")
-                    .append("   Precio: S/ ").append(formatPrice(precio))
-                    .append(" → Subtotal: S/ ").append(formatPrice(subtotal)).append("\n\n");
+            msg.add(CANTIDAD).numero(item.cantidad())
+                    .add(PRECIO).precio(precio)
+                    .add(SUBTOTAL).precio(subtotal).add(FIN_ITEM);
         }
 
-        msg.append("━━━━━━━━━━━━━━━━━━━\n")
-                .append("💰 *TOTAL: S/ ").append(formatPrice(total)).append("*\n\n")
-
-                // Mensaje más directo y limpio (sin pedir datos personales de entrada)
-                .append("Por favor responde con:\n")
-                .append("• Dirección completa + referencia\n")
-                .append("• Distrito\n")
-                .append("• Método de pago\n")
-                .append("• Método de entrega\n\n")
-
-                .append("¡Gracias por tu pedido! Te respondo rapidito 🚀");
+        msg.add(TOTAL).precio(total).add(PIE);
+        String url = msg.url(tienda.whatsapp());
 
-        String encoded = URLEncoder.encode(msg.toString(), StandardCharsets.UTF_8);
-        return "https://wa.me/" + numeroWhats + "?text=" + encoded;
+        // El pedido sale con el stock apartado hasta que la tienda lo atienda (o venza)
+        reservaStockLedger.reservarCheckout(req.getSessionId(), items.stream()
+                .filter(item -> variantes.containsKey(item.varianteId()))
+                .map(item -> new ReservaStockLedger.Linea(item.id(), item.varianteId(),
+                        item.cantidad(), variantes.get(item.varianteId()).stock()))
+                .toList());
+        return url;
     }
-    // Pequeño helper para evitar problemas con _ * en nombres de productos o atributos
-    private String escapeMarkdown(String text) {
-        if (text == null) return "";
-        return text.replace("_", "\\_")
-                .replace("*", "\\*")
-                .replace("`", "\\`");
-    }
-    // ===================== MÉTODOS AUXILIARES =====================
 
-    private String normalizeWhatsappNumber(String raw) {
-        if (raw == null) return null;
-        String cleaned = raw.replaceAll("[^0-9]", "");
-        if (cleaned.startsWith("00")) cleaned = cleaned.substring(2);
-        if (cleaned.startsWith("+")) cleaned = cleaned.substring(1);
-        if (cleaned.length() == 9 && !cleaned.startsWith("51")) cleaned = "51" + cleaned;
-        return (cleaned.length() >= 10 && cleaned.length() <= 14) ? cleaned : null;
-    }
+    // ===================== MÉTODOS AUXILIARES =====================
 
-    private CarritoResponse toResponse(Carrito c) {
+    private CarritoResponse toResponse(CarritoItem item, VarianteCarrito v) {
         CarritoResponse dto = new CarritoResponse();
-        dto.setId(c.getId());
-        dto.setSessionId(c.getSessionId());
-        dto.setCantidad(c.getCantidad());
-
-        if (c.getVariante() != null) {
-            ProductoVariante v = c.getVariante();
-            dto.setVarianteId(v.getId());
-            dto.setNombreProducto(v.getProducto().getNombre());
-            dto.setSku(v.getSku());
-            dto.setPrecio(v.getPrecio().doubleValue());
-            dto.setImagenUrl(v.getImagenUrl());
-
-            List<AtributoResponse> atributos = v.getAtributos().stream()
-                    .map(av -> {
-                        AtributoResponse attr = new AtributoResponse();
-                        attr.setId(av.getId());
-                        attr.setNombre(av.getAtributo() != null ? av.getAtributo().getNombre() : "");
-                        attr.setValor(av.getValor());
-                        attr.setTiendaId(av.getAtributo() != null && av.getAtributo().getTienda() != null ?
-                                av.getAtributo().getTienda().getId() : null);
-                        return attr;
-                    })
-                    .collect(Collectors.toList());
-
-            dto.setAtributos(atributos.isEmpty() ? null : atributos);
+        dto.setId(item.id());
+        dto.setSessionId(item.sessionId());
+        dto.setCantidad(item.cantidad());
+
+        if (v != null) {
+            dto.setVarianteId(v.id());
+            dto.setNombreProducto(v.nombreProducto());
+            dto.setSku(v.sku());
+            dto.setPrecio(v.precio().doubleValue());
+            dto.setStockDisponible(reservaStockLedger.disponiblePara(v.id(), item.id(), v.stock()));
+            dto.setImagenUrl(v.imagenUrl());
+            dto.setAtributos(v.atributos().isEmpty() ? null : List.copyOf(v.atributos()));
         }
         return dto;
     }
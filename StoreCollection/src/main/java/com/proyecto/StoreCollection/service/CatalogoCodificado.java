@@ -0,0 +1,8 @@
+package com.proyecto.StoreCollection.service;
+
+/**
+ * Respuesta del catálogo público ya serializada: JSON plano, su versión gzip
+ * y un ETag fuerte derivado del contenido (igual en todos los nodos).
+ */
+public record CatalogoCodificado(byte[] json, byte[] gzip, String etag) {
+}
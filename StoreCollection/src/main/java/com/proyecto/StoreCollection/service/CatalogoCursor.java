@@ -0,0 +1,61 @@
+package com.proyecto.StoreCollection.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco del catálogo paginado: orden + valor de la última card + su id.
+ * Viaja como base64 url-safe ("orden|valor|id").
+ */
+public record CatalogoCursor(Orden orden, String valor, Integer id) {
+
+    public enum Orden {
+        PRICE, PRICE_DESC, STOCK, NEWEST;
+
+        public static Orden desde(String sort) {
+            if (sort == null || sort.isBlank()) return STOCK;
+            try {
+                return valueOf(sort.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Orden inválido: " + sort + ". Usa price, price_desc, stock o newest");
+            }
+        }
+    }
+
+    public BigDecimal valorDecimal() {
+        return new BigDecimal(valor);
+    }
+
+    public long valorLong() {
+        return Long.parseLong(valor);
+    }
+
+    public String codificar() {
+        String plano = orden.name() + "|" + (valor != null ? valor : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CatalogoCursor decodificar(String cursor, Orden ordenEsperado) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = plano.split("\\|", -1);
+            Orden orden = Orden.valueOf(partes[0]);
+            if (partes.length != 3 || orden != ordenEsperado) {
+                throw new IllegalArgumentException("Cursor de otro orden");
+            }
+            CatalogoCursor c = new CatalogoCursor(orden, partes[1], Integer.valueOf(partes[2]));
+            // Valida que el valor tenga el tipo que espera la consulta
+            if (orden == Orden.PRICE || orden == Orden.PRICE_DESC) c.valorDecimal();
+            if (orden == Orden.STOCK) c.valorLong();
+            return c;
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cursor inválido. Vuelve a pedir la primera página.");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.cache.TtlCache;
+import com.proyecto.StoreCollection.dto.response.ProductoCardResponse;
+import com.proyecto.StoreCollection.event.CatalogoModificadoEvent;
+import com.proyecto.StoreCollection.event.TiendaModificadaEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Snapshot del catálogo público por tienda.
+ * Se construye una vez y se descarta cuando llega un CatalogoModificadoEvent
+ * (después del commit), así las visitas a la tienda se sirven desde memoria.
+ */
+@Component
+public class CatalogoPublicoCache {
+
+    private static final AtomicLong VERSIONES = new AtomicLong();
+
+    private final TtlCache<Integer, CatalogoSnapshot> cache;
+
+    // Se incrementa en cada invalidación: un snapshot construido con datos
+    // anteriores a la invalidación no se guarda
+    private final Map<Integer, AtomicLong> generaciones = new ConcurrentHashMap<>();
+
+    public CatalogoPublicoCache(CacheRegistry cacheRegistry,
+                                @Value("${app.cache.catalogo.max-size:500}") int maxSize,
+                                @Value("${app.cache.catalogo.ttl-seconds:1800}") long ttlSeconds) {
+        this.cache = cacheRegistry.crear("catalogo-publico", maxSize, ttlSeconds * 1000);
+    }
+
+    public CatalogoSnapshot get(Integer tiendaId, Supplier<List<ProductoCardResponse>> loader) {
+        CatalogoSnapshot snapshot = cache.get(tiendaId);
+        if (snapshot != null) return snapshot;
+
+        AtomicLong generacion = generacion(tiendaId);
+        // Un solo hilo reconstruye por tienda; los demás esperan y reutilizan el resultado
+        synchronized (generacion) {
+            snapshot = cache.get(tiendaId);
+            if (snapshot != null) return snapshot;
+
+            long antes = generacion.get();
+            snapshot = new CatalogoSnapshot(tiendaId, VERSIONES.incrementAndGet(), loader.get());
+            if (generacion.get() == antes) {
+                cache.put(tiendaId, snapshot);
+            }
+            return snapshot;
+        }
+    }
+
+    public void invalidar(Integer tiendaId) {
+        if (tiendaId == null) return;
+        generacion(tiendaId).incrementAndGet();
+        cache.evict(tiendaId);
+    }
+
+    private AtomicLong generacion(Integer tiendaId) {
+        return generaciones.computeIfAbsent(tiendaId, id -> new AtomicLong());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        invalidar(event.tiendaId());
+    }
+
+    // Activar/desactivar la tienda cambia lo que ve el público
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTiendaModificada(TiendaModificadaEvent event) {
+        invalidar(event.tiendaId());
+    }
+}
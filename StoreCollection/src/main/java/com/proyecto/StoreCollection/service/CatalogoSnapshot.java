@@ -0,0 +1,85 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.dto.response.ProductoCardResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Catálogo público ya calculado de una tienda (stockTotal, precioMinimo,
+ * imagenPrincipal y orden incluidos). Se comparte entre requests:
+ * las cards no deben modificarse después de construido.
+ *
+ * version cambia cada vez que el snapshot se reconstruye.
+ */
+public final class CatalogoSnapshot {
+
+    private final Integer tiendaId;
+    private final long version;
+    private final List<ProductoCardResponse> productos;
+
+    // JSON (y gzip) se generan la primera vez que se piden y viven lo que vive el snapshot
+    private volatile CatalogoCodificado codificado;
+
+    // Última versión con reservas aplicadas, válida mientras las reservas den el mismo disponible
+    private volatile ConReservas conReservas;
+    private volatile Map<Integer, ProductoCardResponse> porId;
+
+    private record ConReservas(Map<Integer, Integer> disponibles, CatalogoCodificado codificado) {
+    }
+
+    public CatalogoSnapshot(Integer tiendaId, long version, List<ProductoCardResponse> productos) {
+        this.tiendaId = tiendaId;
+        this.version = version;
+        this.productos = List.copyOf(productos);
+    }
+
+    public static CatalogoSnapshot vacio(Integer tiendaId) {
+        return new CatalogoSnapshot(tiendaId, 0L, List.of());
+    }
+
+    public Integer tiendaId() {
+        return tiendaId;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public List<ProductoCardResponse> productos() {
+        return productos;
+    }
+
+    public CatalogoCodificado codificado(Function<CatalogoSnapshot, CatalogoCodificado> codificador) {
+        CatalogoCodificado actual = codificado;
+        if (actual == null) {
+            // Si dos hilos llegan a la vez ambos codifican; el resultado es idéntico
+            actual = codificador.apply(this);
+            codificado = actual;
+        }
+        return actual;
+    }
+
+    /** disponibles: varianteId -> stock disponible de las variantes que tienen reservas. */
+    public CatalogoCodificado codificadoConReservas(Map<Integer, Integer> disponibles,
+                                                    Supplier<CatalogoCodificado> codificador) {
+        ConReservas actual = conReservas;
+        if (actual == null || !actual.disponibles().equals(disponibles)) {
+            actual = new ConReservas(Map.copyOf(disponibles), codificador.get());
+            conReservas = actual;
+        }
+        return actual.codificado();
+    }
+
+    public ProductoCardResponse producto(Integer id) {
+        Map<Integer, ProductoCardResponse> indice = porId;
+        if (indice == null) {
+            indice = productos.stream().collect(Collectors.toUnmodifiableMap(ProductoCardResponse::getId, p -> p));
+            porId = indice;
+        }
+        return indice.get(id);
+    }
+}
@@ -5,10 +5,12 @@ import com.proyecto.StoreCollection.dto.request.CategoriaRequest;
 import com.proyecto.StoreCollection.dto.response.CategoriaResponse;
 import com.proyecto.StoreCollection.entity.Categoria;
 import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.event.CatalogoModificadoEvent;
 import com.proyecto.StoreCollection.repository.CategoriaRepository;
 import com.proyecto.StoreCollection.repository.ProductoRepository;
 import com.proyecto.StoreCollection.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -30,6 +32,7 @@ public class CategoriaServiceImpl implements CategoriaService {
     private final CategoriaRepository categoriaRepository;
     private final TiendaService tiendaService; // ← para asignar automáticamente la tienda
     private final ProductoRepository productoRepository; // ← para asignar automáticamente la tienda
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional(readOnly = true)
@@ -148,6 +151,7 @@ public class CategoriaServiceImpl implements CategoriaService {
 
         Categoria categoria;
         Tienda tiendaAsignada;
+        Integer tiendaAnteriorId = null;
 
         if (id == null) {
             // ==================== CREACIÓN ====================
@@ -168,6 +172,7 @@ public class CategoriaServiceImpl implements CategoriaService {
             // ==================== EDICIÓN ====================
             categoria = categoriaRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
+            tiendaAnteriorId = categoria.getTienda().getId();
 
             // Verificación de permisos
             if (!esAdmin && !categoria.getTienda().getUser().getEmail().equals(emailActual)) {
@@ -197,6 +202,11 @@ public class CategoriaServiceImpl implements CategoriaService {
         categoria.setTienda(tiendaAsignada);
 
         Categoria saved = categoriaRepository.save(categoria);
+        // El nombre de la categoría aparece en las cards del catálogo
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deTienda(tiendaAsignada.getId()));
+        if (tiendaAnteriorId != null && !tiendaAnteriorId.equals(tiendaAsignada.getId())) {
+            eventPublisher.publishEvent(CatalogoModificadoEvent.deTienda(tiendaAnteriorId));
+        }
         return toResponse(saved);
     }
     @Override
@@ -222,6 +232,7 @@ public class CategoriaServiceImpl implements CategoriaService {
         }
 
         Categoria saved = categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deTienda(saved.getTienda().getId()));
         return toResponse(saved);
     }
     @Override
@@ -240,6 +251,7 @@ public class CategoriaServiceImpl implements CategoriaService {
         }
 
         categoriaRepository.delete(categoria);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deTienda(categoria.getTienda().getId()));
     }
 
     private CategoriaResponse toResponse(Categoria c) {
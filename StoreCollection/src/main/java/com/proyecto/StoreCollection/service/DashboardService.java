@@ -0,0 +1,24 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.dto.special.DashboardResumenDto;
+import com.proyecto.StoreCollection.dto.special.VentaPeriodoDto;
+import com.proyecto.StoreCollection.entity.Boleta;
+import com.proyecto.StoreCollection.entity.VentaRollup;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface DashboardService {
+
+    // Totales de toda la plataforma (solo ADMIN)
+    DashboardResumenDto resumenGlobal();
+
+    // Totales de las tiendas del dueño; vacío si no tiene tiendas
+    Optional<DashboardResumenDto> resumenDeUsuario(String email);
+
+    // Ventas por día / semana / mes desde venta_rollup; tiendaIds null = todas las tiendas
+    List<VentaPeriodoDto> serieVentas(Collection<Integer> tiendaIds, VentaRollup.Periodo periodo,
+                                      Boleta.EstadoBoleta estado, LocalDate desde, LocalDate hasta);
+}
@@ -0,0 +1,213 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.cache.TtlCache;
+import com.proyecto.StoreCollection.dto.special.DashboardResumenDto;
+import com.proyecto.StoreCollection.dto.special.VentaPeriodoDto;
+import com.proyecto.StoreCollection.entity.Boleta;
+import com.proyecto.StoreCollection.entity.Plan;
+import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.entity.VentaRollup;
+import com.proyecto.StoreCollection.event.BoletaEstadoCambiadoEvent;
+import com.proyecto.StoreCollection.event.TiendaModificadaEvent;
+import com.proyecto.StoreCollection.repository.PlanRepository;
+import com.proyecto.StoreCollection.repository.TiendaRepository;
+import com.proyecto.StoreCollection.repository.VentaRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Totales del dashboard por alcance (toda la plataforma o las tiendas de un dueño).
+ * Cada alcance se calcula con una consulta agrupada por estado sobre venta_rollup y se cachea con TTL corto;
+ * mientras está en caché, los cambios de estado de las boletas se aplican como deltas.
+ * Sin @Transactional: un acierto de caché no debe tomar conexión del pool.
+ */
+@Service
+public class DashboardServiceImpl implements DashboardService {
+
+    private static final String GLOBAL = "*";
+    private static final int MAX_PERIODOS_SERIE = 400;
+
+    private final TiendaRepository tiendaRepository;
+    private final PlanRepository planRepository;
+    private final VentaRollupRepository rollupRepository;
+    private final TtlCache<String, Resumen> cache;
+
+    // Protege los Resumen cacheados y el contador de cambios
+    private final Object lock = new Object();
+    private long cambios;
+
+    public DashboardServiceImpl(TiendaRepository tiendaRepository,
+                                PlanRepository planRepository,
+                                VentaRollupRepository rollupRepository,
+                                CacheRegistry cacheRegistry,
+                                @Value("${app.cache.dashboard.max-size:1000}") int maxSize,
+                                @Value("${app.cache.dashboard.ttl-seconds:60}") long ttlSeconds) {
+        this.tiendaRepository = tiendaRepository;
+        this.planRepository = planRepository;
+        this.rollupRepository = rollupRepository;
+        this.cache = cacheRegistry.crear("dashboard", maxSize, ttlSeconds * 1000);
+    }
+
+    @Override
+    public DashboardResumenDto resumenGlobal() {
+        return obtener(GLOBAL, () -> {
+            Resumen r = new Resumen(null, tiendaRepository.count(), planRepository.countByActivoTrue());
+            r.cargar(rollupRepository.resumenPorEstado(VentaRollup.Periodo.MES));
+            return r;
+        });
+    }
+
+    @Override
+    public Optional<DashboardResumenDto> resumenDeUsuario(String email) {
+        return Optional.ofNullable(obtener("usuario:" + email, () -> {
+            List<Tienda> tiendas = tiendaRepository.findByUserEmailWithPlan(email);
+            if (tiendas.isEmpty()) return null;
+
+            Set<Integer> tiendaIds = tiendas.stream().map(Tienda::getId).collect(Collectors.toSet());
+            long planesActivos = tiendas.stream()
+                    .map(Tienda::getPlan)
+                    .filter(Plan::getActivo)
+                    .distinct()
+                    .count();
+
+            Resumen r = new Resumen(tiendaIds, tiendas.size(), planesActivos);
+            r.cargar(rollupRepository.resumenPorEstadoAndTiendaIdIn(VentaRollup.Periodo.MES, tiendaIds));
+            return r;
+        }));
+    }
+
+    @Override
+    public List<VentaPeriodoDto> serieVentas(Collection<Integer> tiendaIds, VentaRollup.Periodo periodo,
+                                             Boleta.EstadoBoleta estado, LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+        LocalDate inicio = periodo.inicioDe(desde);
+        long periodos = switch (periodo) {
+            case DIA -> ChronoUnit.DAYS.between(inicio, hasta);
+            case SEMANA -> ChronoUnit.WEEKS.between(inicio, hasta);
+            case MES -> ChronoUnit.MONTHS.between(inicio, hasta);
+        };
+        if (periodos >= MAX_PERIODOS_SERIE) {
+            throw new IllegalArgumentException("El rango no puede tener más de " + MAX_PERIODOS_SERIE + " periodos");
+        }
+
+        List<Object[]> filas = tiendaIds == null
+                ? rollupRepository.serie(periodo, estado, inicio, hasta)
+                : rollupRepository.serieByTiendaIdIn(periodo, estado, inicio, hasta, tiendaIds);
+
+        return filas.stream()
+                .map(f -> new VentaPeriodoDto(
+                        (LocalDate) f[0],
+                        ((Number) f[1]).longValue(),
+                        ((Number) f[2]).longValue(),
+                        (BigDecimal) f[3]))
+                .filter(v -> v.boletas() > 0)
+                .toList();
+    }
+
+    // Si algo cambió mientras se consultaba, el resultado se devuelve pero no se cachea
+    // (el delta de ese cambio pudo haber llegado antes de que el resumen estuviera en la caché)
+    private DashboardResumenDto obtener(String clave, Supplier<Resumen> carga) {
+        long version;
+        synchronized (lock) {
+            Resumen cacheado = cache.get(clave);
+            if (cacheado != null) return cacheado.toDto();
+            version = cambios;
+        }
+
+        Resumen nuevo = carga.get();
+        if (nuevo == null) return null;
+
+        synchronized (lock) {
+            if (version == cambios) cache.put(clave, nuevo);
+            return nuevo.toDto();
+        }
+    }
+
+    // ======================== DELTAS ========================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBoletaEstadoCambiado(BoletaEstadoCambiadoEvent event) {
+        synchronized (lock) {
+            cambios++;
+            cache.forEach((clave, resumen) -> resumen.aplicar(event));
+        }
+    }
+
+    // Altas, bajas o cambios de plan de tiendas: se recalcula todo en la próxima lectura
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTiendaModificada(TiendaModificadaEvent event) {
+        synchronized (lock) {
+            cambios++;
+            cache.clear();
+        }
+    }
+
+    // Mutable: solo se lee o modifica con el lock tomado
+    private static final class Resumen {
+
+        private final Set<Integer> tiendaIds;   // null = todas las tiendas
+        private final long totalTiendas;
+        private final long totalPlanesActivos;
+        private final EnumMap<Boleta.EstadoBoleta, Long> cantidades = new EnumMap<>(Boleta.EstadoBoleta.class);
+        private final EnumMap<Boleta.EstadoBoleta, BigDecimal> montos = new EnumMap<>(Boleta.EstadoBoleta.class);
+
+        Resumen(Set<Integer> tiendaIds, long totalTiendas, long totalPlanesActivos) {
+            this.tiendaIds = tiendaIds;
+            this.totalTiendas = totalTiendas;
+            this.totalPlanesActivos = totalPlanesActivos;
+        }
+
+        // Filas [estado, cantidad, total]
+        void cargar(List<Object[]> filas) {
+            for (Object[] fila : filas) {
+                Boleta.EstadoBoleta estado = (Boleta.EstadoBoleta) fila[0];
+                cantidades.put(estado, ((Number) fila[1]).longValue());
+                montos.put(estado, (BigDecimal) fila[2]);
+            }
+        }
+
+        void aplicar(BoletaEstadoCambiadoEvent e) {
+            if (tiendaIds != null && !tiendaIds.contains(e.tiendaId())) return;
+            BigDecimal total = e.total() != null ? e.total() : BigDecimal.ZERO;
+            if (e.estadoAnterior() != null) {
+                cantidades.merge(e.estadoAnterior(), -1L, Long::sum);
+                montos.merge(e.estadoAnterior(), total.negate(), BigDecimal::add);
+            }
+            cantidades.merge(e.estadoNuevo(), 1L, Long::sum);
+            montos.merge(e.estadoNuevo(), total, BigDecimal::add);
+        }
+
+        DashboardResumenDto toDto() {
+            long totalBoletas = 0;
+            Map<String, BigDecimal> porEstado = new LinkedHashMap<>();
+            for (Map.Entry<Boleta.EstadoBoleta, Long> e : cantidades.entrySet()) {
+                if (e.getValue() <= 0) continue;
+                totalBoletas += e.getValue();
+                porEstado.put(e.getKey().name(), montos.getOrDefault(e.getKey(), BigDecimal.ZERO));
+            }
+            return new DashboardResumenDto(
+                    totalTiendas,
+                    totalPlanesActivos,
+                    totalBoletas,
+                    montos.getOrDefault(Boleta.EstadoBoleta.ATENDIDA, BigDecimal.ZERO),
+                    porEstado);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.proyecto.StoreCollection.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PDFs de factura ya generados, por (boletaId, huella del contenido).
+ * Acotada por bytes totales (LRU); al guardar una versión nueva se descartan las anteriores de la misma boleta.
+ */
+@Component
+public class FacturaPdfCache {
+
+    public record Clave(Integer boletaId, String huella) {
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<Clave, byte[]> entradas = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    public FacturaPdfCache(@Value("${app.pdf.cache-max-mb:64}") long maxMb) {
+        this.maxBytes = maxMb * 1024 * 1024;
+    }
+
+    public synchronized byte[] get(Clave clave) {
+        return entradas.get(clave);
+    }
+
+    public synchronized void put(Clave clave, byte[] pdf) {
+        if (pdf.length > maxBytes) return;
+
+        entradas.entrySet().removeIf(e -> {
+            boolean anterior = e.getKey().boletaId().equals(clave.boletaId()) && !e.getKey().equals(clave);
+            if (anterior) bytes -= e.getValue().length;
+            return anterior;
+        });
+
+        byte[] previo = entradas.put(clave, pdf);
+        bytes += pdf.length - (previo != null ? previo.length : 0);
+
+        // Las menos usadas primero
+        Iterator<Map.Entry<Clave, byte[]>> it = entradas.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Clave, byte[]> e = it.next();
+            if (e.getKey().equals(clave)) continue;
+            bytes -= e.getValue().length;
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.proyecto.StoreCollection.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.StoreCollection.dto.response.BoletaResponse;
+import com.proyecto.StoreCollection.event.BoletaAtendidaEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera las facturas PDF fuera de la transacción: al atender una boleta se encola su PDF
+ * (pool y cola acotados; si la cola está llena se omite y se genera al descargar) y las
+ * descargas salen de FacturaPdfCache. Una misma versión nunca se genera dos veces a la vez.
+ */
+@Slf4j
+@Component
+public class FacturaPdfGenerator {
+
+    private final PdfService pdfService;
+    private final BoletaService boletaService;
+    private final FacturaPdfCache cache;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor executor;
+
+    private final ConcurrentHashMap<FacturaPdfCache.Clave, CompletableFuture<byte[]>> enCurso = new ConcurrentHashMap<>();
+
+    public FacturaPdfGenerator(PdfService pdfService,
+                               BoletaService boletaService,
+                               FacturaPdfCache cache,
+                               ObjectMapper objectMapper,
+                               @Value("${app.pdf.hilos:2}") int hilos,
+                               @Value("${app.pdf.cola:100}") int cola) {
+        this.pdfService = pdfService;
+        this.boletaService = boletaService;
+        this.cache = cache;
+        this.objectMapper = objectMapper;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(cola),
+                r -> {
+                    Thread t = new Thread(r, "factura-pdf-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Después del commit: el hilo del pool lee la boleta ya confirmada
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBoletaAtendida(BoletaAtendidaEvent event) {
+        try {
+            executor.execute(() -> prerenderizar(event.boletaId()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Cola de facturas llena: el PDF de la boleta {} se generará al descargarlo", event.boletaId());
+        }
+    }
+
+    private void prerenderizar(Integer boletaId) {
+        try {
+            BoletaResponse boleta = boletaService.findByIdParaFactura(boletaId);
+            if ("ATENDIDA".equals(boleta.getEstado())) {
+                obtener(boleta);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo pre-generar el PDF de la boleta {}: {}", boletaId, e.getMessage());
+        }
+    }
+
+    public FacturaPdfCache.Clave clave(BoletaResponse boleta) throws JsonProcessingException {
+        return new FacturaPdfCache.Clave(boleta.getId(), huella(boleta));
+    }
+
+    public byte[] cacheado(FacturaPdfCache.Clave clave) {
+        return cache.get(clave);
+    }
+
+    /** PDF de la versión actual de la boleta: de la caché, esperando uno en curso o generándolo aquí. */
+    public byte[] obtener(BoletaResponse boleta) throws Exception {
+        FacturaPdfCache.Clave clave = clave(boleta);
+        byte[] pdf = cache.get(clave);
+        return pdf != null ? pdf : generarUnaVez(clave, boleta);
+    }
+
+    private byte[] generarUnaVez(FacturaPdfCache.Clave clave, BoletaResponse boleta) throws Exception {
+        CompletableFuture<byte[]> propio = new CompletableFuture<>();
+        CompletableFuture<byte[]> existente = enCurso.putIfAbsent(clave, propio);
+        if (existente != null) {
+            try {
+                return existente.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception causa ? causa : e;
+            }
+        }
+
+        try {
+            byte[] pdf = pdfService.generarFacturaPdf(boleta);
+            cache.put(clave, pdf);
+            propio.complete(pdf);
+            return pdf;
+        } catch (Exception e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propio);
+        }
+    }
+
+    // Cualquier cambio en lo que se imprime (estado, comprador, líneas...) da otra huella
+    private String huella(BoletaResponse boleta) throws JsonProcessingException {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(boleta));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,126 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.dto.response.BoletaResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exporta varias facturas en un ZIP que se va escribiendo en la respuesta.
+ * Los PDFs se generan en paralelo en un pool propio, pero nunca hay más de "ventana"
+ * en memoria: se escriben en orden y recién al escribir uno se encarga el siguiente.
+ */
+@Slf4j
+@Component
+public class FacturaZipExporter {
+
+    private final PdfService pdfService;
+    private final FacturaPdfGenerator facturaPdfGenerator;
+    private final ThreadPoolExecutor executor;
+    private final int ventana;
+
+    public FacturaZipExporter(PdfService pdfService,
+                              FacturaPdfGenerator facturaPdfGenerator,
+                              @Value("${app.pdf.exportacion.hilos:2}") int hilos,
+                              @Value("${app.pdf.exportacion.ventana:4}") int ventana) {
+        this.pdfService = pdfService;
+        this.facturaPdfGenerator = facturaPdfGenerator;
+        this.ventana = Math.max(1, ventana);
+
+        AtomicInteger contador = new AtomicInteger();
+        // Si varias exportaciones llenan la cola, el hilo de la descarga genera el PDF él mismo
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.ventana * 4),
+                r -> {
+                    Thread t = new Thread(r, "factura-zip-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Escribe el ZIP en la salida sin cerrarla (la cierra el contenedor). */
+    public void escribirZip(List<BoletaResponse> boletas, OutputStream salida) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(salida);
+        // Los PDFs ya vienen comprimidos: se guardan tal cual, sin gastar CPU en deflate
+        zip.setLevel(Deflater.NO_COMPRESSION);
+
+        Iterator<BoletaResponse> pendientes = boletas.iterator();
+        ArrayDeque<Pdf> enVuelo = new ArrayDeque<>(ventana);
+        try {
+            while (enVuelo.size() < ventana && pendientes.hasNext()) {
+                enVuelo.add(encargar(pendientes.next()));
+            }
+            while (!enVuelo.isEmpty()) {
+                Pdf siguiente = enVuelo.poll();
+                byte[] pdf = esperar(siguiente);
+
+                zip.putNextEntry(new ZipEntry("factura_boleta_" + siguiente.boletaId() + ".pdf"));
+                zip.write(pdf);
+                zip.closeEntry();
+
+                if (pendientes.hasNext()) {
+                    enVuelo.add(encargar(pendientes.next()));
+                }
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            // Si el cliente cortó la descarga: los encargados que no empezaron ya no se generan y los que
+            // están en curso reciben la interrupción (iText no la revisa, así que esos terminan igual)
+            enVuelo.forEach(p -> p.futuro().cancel(true));
+        }
+    }
+
+    // Future del executor (no CompletableFuture) para que cancel(true) interrumpa el hilo que genera
+    private record Pdf(Integer boletaId, Future<byte[]> futuro) {
+    }
+
+    private Pdf encargar(BoletaResponse boleta) {
+        return new Pdf(boleta.getId(), executor.submit(() -> generar(boleta)));
+    }
+
+    // Si la factura ya estaba pre-generada se usa esa; las demás no se guardan en la caché
+    private byte[] generar(BoletaResponse boleta) {
+        try {
+            byte[] cacheado = facturaPdfGenerator.cacheado(facturaPdfGenerator.clave(boleta));
+            return cacheado != null ? cacheado : pdfService.generarFacturaPdf(boleta);
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo generar el PDF de la boleta " + boleta.getId(), e);
+        }
+    }
+
+    private static byte[] esperar(Pdf pdf) throws IOException {
+        try {
+            return pdf.futuro().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Exportación interrumpida", e);
+        } catch (ExecutionException e) {
+            log.error("Error generando la factura de la boleta {} para el ZIP", pdf.boletaId(), e.getCause());
+            throw new IOException("No se pudo generar la factura de la boleta " + pdf.boletaId(), e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+}
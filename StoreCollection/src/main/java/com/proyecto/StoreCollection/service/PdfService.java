@@ -1,29 +1,129 @@
 package com.proyecto.StoreCollection.service;
 
+import com.itextpdf.html2pdf.ConverterProperties;
 import com.itextpdf.html2pdf.HtmlConverter;
+import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
+import com.itextpdf.layout.font.FontSet;
+import com.itextpdf.styledxmlparser.resolver.font.BasicFontProvider;
+import com.proyecto.StoreCollection.dto.response.BoletaDetalleResponse;
 import com.proyecto.StoreCollection.dto.response.BoletaResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
-import lombok.RequiredArgsConstructor;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class PdfService {
 
+    private static final String PLANTILLA = "pdf/factura";
+    private static final int BUFFER_INICIAL = 64 * 1024;
+    private static final int BUFFER_MAX = 1024 * 1024;
+
+    // Buffer de salida reutilizado por hilo (se descarta si creció demasiado)
+    private static final ThreadLocal<ByteArrayOutputStream> BUFFER =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(BUFFER_INICIAL));
+
     private final TemplateEngine templateEngine;
 
+    // Las fuentes se leen una sola vez; cada conversión solo crea un FontProvider liviano sobre este FontSet
+    private FontSet fuentes;
+    private String familiaPorDefecto;
+    private ConverterProperties propiedadesBase;
+
+    public PdfService(TemplateEngine templateEngine) {
+        this.templateEngine = templateEngine;
+    }
+
+    @PostConstruct
+    public void init() {
+        DefaultFontProvider prototipo = new DefaultFontProvider(true, true, false);
+        this.fuentes = prototipo.getFontSet();
+        this.familiaPorDefecto = prototipo.getDefaultFontFamily();
+        this.propiedadesBase = new ConverterProperties()
+                .setCharset(StandardCharsets.UTF_8.name());
+    }
+
+    // Deja resuelta la plantilla (caché de Thymeleaf) y cargadas las clases de iText antes del primer pedido
+    @EventListener(ApplicationReadyEvent.class)
+    public void precalentar() {
+        try {
+            escribirFacturaPdf(boletaDeEjemplo(), OutputStream.nullOutputStream());
+        } catch (Exception e) {
+            log.warn("No se pudo precalentar la generación de PDFs: {}", e.getMessage());
+        }
+    }
+
     public byte[] generarFacturaPdf(BoletaResponse boleta) throws Exception {
+        ByteArrayOutputStream buffer = BUFFER.get();
+        buffer.reset();
+        try {
+            escribirFacturaPdf(boleta, buffer);
+            return buffer.toByteArray();
+        } finally {
+            if (buffer.size() > BUFFER_MAX) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+    /** Escribe el PDF directamente en la salida (ej. la respuesta HTTP). No cierra la salida. */
+    public void escribirFacturaPdf(BoletaResponse boleta, OutputStream salida) throws IOException {
         Context context = new Context();
         context.setVariable("boleta", boleta);
 
-        String html = templateEngine.process("pdf/factura", context);
+        String html = templateEngine.process(PLANTILLA, context);
+
+        ConverterProperties propiedades = new ConverterProperties(propiedadesBase)
+                .setFontProvider(new BasicFontProvider(fuentes, familiaPorDefecto));
+        HtmlConverter.convertToPdf(html, new SinCerrar(salida), propiedades);
+    }
+
+    private static BoletaResponse boletaDeEjemplo() {
+        BoletaDetalleResponse detalle = new BoletaDetalleResponse();
+        detalle.setNombreProducto("Producto");
+        detalle.setSku("SKU");
+        detalle.setCantidad(1);
+        detalle.setPrecioUnitario(BigDecimal.ONE);
+        detalle.setSubtotal(BigDecimal.ONE);
+
+        BoletaResponse boleta = new BoletaResponse();
+        boleta.setId(0);
+        boleta.setFecha(LocalDateTime.now());
+        boleta.setEstado("ATENDIDA");
+        boleta.setTiendaNombre("Tienda");
+        boleta.setTotal(BigDecimal.ONE);
+        boleta.setDetalles(List.of(detalle));
+        return boleta;
+    }
+
+    // iText cierra el stream al terminar el documento; la respuesta HTTP la cierra el contenedor
+    private static final class SinCerrar extends FilterOutputStream {
+
+        SinCerrar(OutputStream out) {
+            super(out);
+        }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        HtmlConverter.convertToPdf(html, outputStream);
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
 
-        return outputStream.toByteArray();
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
     }
-}
\ No newline at end of file
+}
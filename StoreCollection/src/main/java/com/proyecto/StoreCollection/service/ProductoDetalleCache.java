@@ -0,0 +1,61 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.cache.TtlCache;
+import com.proyecto.StoreCollection.dto.response.ProductoCardResponse;
+import com.proyecto.StoreCollection.event.CatalogoModificadoEvent;
+import com.proyecto.StoreCollection.event.TiendaModificadaEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Detalle público de producto por (tiendaId, productoSlug).
+ * Se invalida por producto (o por tienda completa) con CatalogoModificadoEvent.
+ */
+@Component
+public class ProductoDetalleCache {
+
+    public record Clave(Integer tiendaId, String productoSlug) {
+    }
+
+    private final TtlCache<Clave, ProductoCardResponse> cache;
+
+    public ProductoDetalleCache(CacheRegistry cacheRegistry,
+                                @Value("${app.cache.producto-detalle.max-size:5000}") int maxSize,
+                                @Value("${app.cache.producto-detalle.ttl-seconds:1800}") long ttlSeconds) {
+        this.cache = cacheRegistry.crear("producto-detalle", maxSize, ttlSeconds * 1000);
+    }
+
+    public ProductoCardResponse get(Integer tiendaId, String productoSlug, Supplier<ProductoCardResponse> loader) {
+        // TtlCache no guarda lo leído si hubo una invalidación mientras tanto
+        return cache.get(new Clave(tiendaId, productoSlug), c -> loader.get());
+    }
+
+    public void invalidarProductos(Integer tiendaId, Set<Integer> productoIds) {
+        // Por id y no por slug: si el slug cambió también cae la entrada anterior
+        cache.evictIf(d -> productoIds.contains(d.getId()));
+    }
+
+    public void invalidarTienda(Integer tiendaId) {
+        if (tiendaId == null) return;
+        cache.evictKeysIf(c -> tiendaId.equals(c.tiendaId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        if (event.afectaTodaLaTienda()) {
+            invalidarTienda(event.tiendaId());
+        } else {
+            invalidarProductos(event.tiendaId(), event.productoIds());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTiendaModificada(TiendaModificadaEvent event) {
+        invalidarTienda(event.tiendaId());
+    }
+}
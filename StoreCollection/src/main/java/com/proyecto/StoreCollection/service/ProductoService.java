@@ -7,6 +7,7 @@ import com.proyecto.StoreCollection.dto.special.ProductoAdminListDTO;  // o muev
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 public interface ProductoService {
@@ -17,6 +18,10 @@ public interface ProductoService {
     ProductoResponse findById(Integer id);
     ProductoResponse toggleActivo(Integer id);
     List<ProductoCardResponse> findAllForPublicCatalog(String tiendaSlug);
+    CatalogoCodificado findCatalogoPublicoCodificado(String tiendaSlug);
+    CatalogoPaginaResponse findCatalogoPublicoPaginado(String tiendaSlug, Integer categoriaId,
+                                                       BigDecimal precioMin, BigDecimal precioMax,
+                                                       String sort, String cursor, int size);
     ProductoCardResponse findByTiendaSlugAndProductoSlug(String tiendaSlug, String productoSlug);
     List<DropTownStandar> getProductosForDropdown();
     ProductoResponse save(ProductoRequest request);
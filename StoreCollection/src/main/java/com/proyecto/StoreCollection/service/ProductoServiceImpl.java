@@ -1,6 +1,7 @@
     package com.proyecto.StoreCollection.service;
     
     import com.cloudinary.utils.ObjectUtils;
+    import com.fasterxml.jackson.databind.ObjectMapper;
     import com.proyecto.StoreCollection.dto.DropTown.DropTownStandar;
     import com.proyecto.StoreCollection.dto.request.AtributoValorRequest;
     import com.proyecto.StoreCollection.dto.request.ProductoRequest;
@@ -8,23 +9,37 @@
     import com.proyecto.StoreCollection.dto.response.*;
     import com.proyecto.StoreCollection.dto.special.ProductoAdminListDTO;
     import com.proyecto.StoreCollection.entity.*;
+    import com.proyecto.StoreCollection.event.CatalogoModificadoEvent;
     import com.proyecto.StoreCollection.repository.*;
+    import com.proyecto.StoreCollection.search.ProductoSearchIndex;
     import com.proyecto.StoreCollection.service.Cloudinary.CloudinaryService;
     import com.proyecto.StoreCollection.tenant.TenantContext;
+    import com.proyecto.StoreCollection.tenant.TenantInfo;
+    import com.proyecto.StoreCollection.tenant.TenantSlugCache;
     import lombok.RequiredArgsConstructor;
+    import org.springframework.context.ApplicationEventPublisher;
     import org.springframework.data.domain.Page;
+    import org.springframework.data.domain.PageImpl;
     import org.springframework.data.domain.Pageable;
     import org.springframework.http.HttpStatus;
     import org.springframework.security.core.Authentication;
     import org.springframework.security.core.context.SecurityContextHolder;
     import org.springframework.stereotype.Service;
+    import org.springframework.transaction.annotation.Propagation;
     import org.springframework.transaction.annotation.Transactional;
     import org.springframework.web.server.ResponseStatusException;
     
+    import java.io.ByteArrayOutputStream;
     import java.io.IOException;
     import java.math.BigDecimal;
+    import java.security.MessageDigest;
+    import java.security.NoSuchAlgorithmException;
+    import java.text.Normalizer;
     import java.util.*;
+    import java.util.function.Function;
+    import java.util.regex.Pattern;
     import java.util.stream.Collectors;
+    import java.util.zip.GZIPOutputStream;
     
     @Service
     @Transactional
@@ -38,7 +53,18 @@
         private final AtributoRepository atributoRepository;
         private final AtributoValorRepository atributoValorRepository;
         private final CloudinaryService cloudinaryService;
-    
+        private final TenantSlugCache tenantSlugCache;
+        private final CatalogoPublicoCache catalogoPublicoCache;
+        private final ProductoDetalleCache productoDetalleCache;
+        private final ReservaStockLedger reservaStockLedger;
+        private final ApplicationEventPublisher eventPublisher;
+        private final ObjectMapper objectMapper;
+        private final ProductoSearchIndex productoSearchIndex;
+    
+        private static final int CATALOGO_SIZE_MAX = 100;
+        private static final BigDecimal CATALOGO_PRECIO_MAX = new BigDecimal("99999999.99");
+        private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
         // ======================== VALIDACIONES CON MENSAJES CLAROS ========================
     
 
@@ -84,8 +110,8 @@
             Integer tenantId = TenantContext.getTenantId();
             if (tenantId == null) return Page.empty(pageable);
     
-            return productoRepository.findByNombreContainingIgnoreCaseAndTenantId(nombre.trim(), tenantId, pageable)
-                    .map(this::toResponse);
+            return buscarEnIndice(tenantId, nombre, pageable, ids -> productoRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Producto::getId, this::toResponse)));
         }
     
         @Override
@@ -190,10 +216,11 @@
     
             // ==================== GUARDAR ====================
             Producto saved = productoRepository.save(producto);
+            eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(tiendaAsignada.getId(), saved.getId()));
             return toResponse(saved);
         }
     
-        // ==================== MANEJO DE VARIANTEs (sin cambios importantes) ====================
+        // ==================== MANEJO DE VARIANTEs ====================
     
         private void manejarVariantes(Producto producto, List<VarianteRequest> variantesRequests, Tienda tienda) {
             if (variantesRequests == null || variantesRequests.isEmpty()) {
@@ -228,13 +255,25 @@
             }
     
             producto.getVariantes().removeAll(aEliminar);
+
+            // Una sola consulta para las variantes existentes y otra para el diccionario de atributos
+            Map<Integer, ProductoVariante> existentes = idsRequest.isEmpty()
+                    ? Map.of()
+                    : varianteRepository.findAllById(idsRequest).stream()
+                    .collect(Collectors.toMap(ProductoVariante::getId, Function.identity()));
+            Map<String, Map<String, AtributoValor>> diccionario = resolverAtributosValores(variantesRequests, tienda);
     
             for (VarianteRequest req : variantesRequests) {
-                ProductoVariante variante = req.getId() != null
-                        ? varianteRepository.findById(req.getId())
-                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                "Variante con ID " + req.getId() + " no encontrada. Refresca la página e inténtalo de nuevo."))
-                        : new ProductoVariante();
+                ProductoVariante variante;
+                if (req.getId() != null) {
+                    variante = existentes.get(req.getId());
+                    if (variante == null) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Variante con ID " + req.getId() + " no encontrada. Refresca la página e inténtalo de nuevo.");
+                    }
+                } else {
+                    variante = new ProductoVariante();
+                }
     
                 variante.setProducto(producto);
                 variante.setTienda(tienda);
@@ -271,7 +310,7 @@
                 }
                 variante.setImagenUrl(imagenUrlFinal);
     
-                manejarAtributosValores(variante, req.getAtributos(), tienda);
+                manejarAtributosValores(variante, req.getAtributos(), diccionario);
                 producto.getVariantes().add(variante);
             }
         }
@@ -294,37 +333,109 @@
             }
         }
     
-        private void manejarAtributosValores(ProductoVariante variante, List<AtributoValorRequest> atributosRequests, Tienda tienda) {
+        private void manejarAtributosValores(ProductoVariante variante, List<AtributoValorRequest> atributosRequests,
+                                             Map<String, Map<String, AtributoValor>> diccionario) {
+            variante.getAtributos().clear();
             if (atributosRequests == null || atributosRequests.isEmpty()) {
-                variante.getAtributos().clear();
                 return;
             }
-            variante.getAtributos().clear();
     
             for (AtributoValorRequest req : atributosRequests) {
                 String nombre = req.getAtributoNombre().trim();
                 String valor = req.getValor().trim();
                 if (nombre.isEmpty() || valor.isEmpty()) continue;
     
-                Atributo atributo = atributoRepository.findByNombreAndTiendaId(nombre, tienda.getId())
-                        .orElseGet(() -> {
-                            Atributo nuevo = new Atributo();
-                            nuevo.setNombre(nombre);
-                            nuevo.setTienda(tienda);
-                            return atributoRepository.save(nuevo);
-                        });
+                variante.getAtributos().add(diccionario.get(claveAtributo(nombre)).get(claveAtributo(valor)));
+            }
+        }
+
+        /**
+         * Resuelve todos los atributos y valores del request de una vez: nombre → (valor → AtributoValor).
+         * Lo que ya existe sale de una consulta; lo que falta se crea con un saveAll por tipo.
+         */
+        private Map<String, Map<String, AtributoValor>> resolverAtributosValores(List<VarianteRequest> variantesRequests,
+                                                                                 Tienda tienda) {
+            // clave del nombre → nombre tal como vino; clave del nombre → (clave del valor → valor)
+            Map<String, String> nombres = new LinkedHashMap<>();
+            Map<String, Map<String, String>> pedidos = new LinkedHashMap<>();
+            for (VarianteRequest variante : variantesRequests) {
+                if (variante.getAtributos() == null) continue;
+                for (AtributoValorRequest req : variante.getAtributos()) {
+                    String nombre = req.getAtributoNombre().trim();
+                    String valor = req.getValor().trim();
+                    if (nombre.isEmpty() || valor.isEmpty()) continue;
+    
+                    String clave = claveAtributo(nombre);
+                    nombres.putIfAbsent(clave, nombre);
+                    pedidos.computeIfAbsent(clave, k -> new LinkedHashMap<>()).putIfAbsent(claveAtributo(valor), valor);
+                }
+            }
+            if (nombres.isEmpty()) {
+                return Map.of();
+            }
     
-                AtributoValor atributoValor = atributoValorRepository.findByAtributoIdAndValor(atributo.getId(), valor)
-                        .orElseGet(() -> {
-                            AtributoValor nuevo = new AtributoValor();
-                            nuevo.setAtributo(atributo);
-                            nuevo.setTienda(tienda);
-                            nuevo.setValor(valor);
-                            return atributoValorRepository.save(nuevo);
-                        });
+            Set<String> valoresPedidos = pedidos.values().stream()
+                    .flatMap(m -> m.values().stream())
+                    .collect(Collectors.toSet());
     
-                variante.getAtributos().add(atributoValor);
+            Map<String, Atributo> atributos = new HashMap<>();
+            Map<Integer, Map<String, AtributoValor>> valoresPorAtributo = new HashMap<>();
+            for (Object[] fila : atributoRepository.findConValoresByTiendaIdAndNombreIn(
+                    tienda.getId(), nombres.values(), valoresPedidos)) {
+                Atributo atributo = (Atributo) fila[0];
+                atributos.putIfAbsent(claveAtributo(atributo.getNombre()), atributo);
+                if (fila[1] != null) {
+                    AtributoValor valor = (AtributoValor) fila[1];
+                    valoresPorAtributo.computeIfAbsent(atributo.getId(), k -> new HashMap<>())
+                            .putIfAbsent(claveAtributo(valor.getValor()), valor);
+                }
+            }
+    
+            List<Atributo> atributosNuevos = new ArrayList<>();
+            nombres.forEach((clave, nombre) -> {
+                if (!atributos.containsKey(clave)) {
+                    Atributo nuevo = new Atributo();
+                    nuevo.setNombre(nombre);
+                    nuevo.setTienda(tienda);
+                    atributos.put(clave, nuevo);
+                    atributosNuevos.add(nuevo);
+                }
+            });
+            if (!atributosNuevos.isEmpty()) {
+                atributoRepository.saveAll(atributosNuevos);
+            }
+    
+            Map<String, Map<String, AtributoValor>> diccionario = new HashMap<>();
+            List<AtributoValor> valoresNuevos = new ArrayList<>();
+            pedidos.forEach((claveNombre, valores) -> {
+                Atributo atributo = atributos.get(claveNombre);
+                Map<String, AtributoValor> existentes = atributo.getId() != null
+                        ? valoresPorAtributo.getOrDefault(atributo.getId(), Map.of())
+                        : Map.of();
+                Map<String, AtributoValor> resueltos = new HashMap<>();
+                valores.forEach((claveValor, valor) -> {
+                    AtributoValor atributoValor = existentes.get(claveValor);
+                    if (atributoValor == null) {
+                        atributoValor = new AtributoValor();
+                        atributoValor.setAtributo(atributo);
+                        atributoValor.setTienda(tienda);
+                        atributoValor.setValor(valor);
+                        valoresNuevos.add(atributoValor);
+                    }
+                    resueltos.put(claveValor, atributoValor);
+                });
+                diccionario.put(claveNombre, resueltos);
+            });
+            if (!valoresNuevos.isEmpty()) {
+                atributoValorRepository.saveAll(valoresNuevos);
             }
+            return diccionario;
+        }
+    
+        // Misma equivalencia que la collation utf8mb4_unicode_ci: sin distinguir mayúsculas ni tildes
+        private static String claveAtributo(String texto) {
+            String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+            return sinTildes.toLowerCase(Locale.ROOT);
         }
     
         // ==================== RESTO DE MÉTODOS (sin cambios mayores) ====================
@@ -366,12 +477,15 @@
             } else {
                 varianteRepository.desactivarTodasPorProductoId(id);
             }
+            eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(producto.getTienda().getId(), id));
 
             return toResponse(productoRepository.findById(id).get());
         }
         @Override
         public void deleteById(Integer id) {
-            productoRepository.delete(productoRepository.getByIdAndTenant(id));
+            Producto producto = productoRepository.getByIdAndTenant(id);
+            productoRepository.delete(producto);
+            eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(producto.getTienda().getId(), id));
         }
     
         @Override
@@ -380,9 +494,129 @@
             if (tenantId == null) return Page.empty(pageable);
             return productoRepository.findAllByTiendaId(tenantId, pageable).map(this::toResponse);
         }
+        // Sin transacción propia: en el caso normal sale del snapshot en memoria
         @Override
-        @Transactional(readOnly = true)
+        @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
         public List<ProductoCardResponse> findAllForPublicCatalog(String tiendaSlug) {
+            List<ProductoCardResponse> productos = snapshotPublico(tiendaSlug).productos();
+            return conReservas(productos, disponiblesConReserva(productos));
+        }
+
+        // Sin reservas sobre la tienda se sirven los bytes del snapshot; con reservas, la última
+        // codificación mientras el disponible de las variantes reservadas no cambie
+        @Override
+        @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+        public CatalogoCodificado findCatalogoPublicoCodificado(String tiendaSlug) {
+            CatalogoSnapshot snapshot = snapshotPublico(tiendaSlug);
+            Map<Integer, Integer> disponibles = disponiblesConReserva(snapshot.productos());
+            if (disponibles.isEmpty()) {
+                return snapshot.codificado(s -> codificarCatalogo(s.tiendaId(), s.productos()));
+            }
+            return snapshot.codificadoConReservas(disponibles, () ->
+                    codificarCatalogo(snapshot.tiendaId(), conReservas(snapshot.productos(), disponibles)));
+        }
+
+        private CatalogoSnapshot snapshotPublico(String tiendaSlug) {
+            TenantInfo info = tenantSlugCache.resolver(tiendaSlug).orElse(null);
+            if (info == null || !info.isActiva()) {
+                return CatalogoSnapshot.vacio(info != null ? info.tiendaId() : null);
+            }
+            return catalogoPublicoCache.get(info.tiendaId(), () -> construirCatalogo(tiendaSlug));
+        }
+
+        // Se ejecuta una vez por snapshot: JSON + gzip + ETag por contenido
+        private CatalogoCodificado codificarCatalogo(Integer tiendaId, List<ProductoCardResponse> productos) {
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(productos);
+
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                    gzip.write(json);
+                }
+
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+                String etag = "\"" + (tiendaId != null ? tiendaId : 0)
+                        + "-" + HexFormat.of().formatHex(hash, 0, 8) + "\"";
+
+                return new CatalogoCodificado(json, buffer.toByteArray(), etag);
+            } catch (IOException | NoSuchAlgorithmException e) {
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                        "No se pudo generar el catálogo de la tienda");
+            }
+        }
+
+        @Override
+        @Transactional(readOnly = true)
+        public CatalogoPaginaResponse findCatalogoPublicoPaginado(String tiendaSlug, Integer categoriaId,
+                                                                  BigDecimal precioMin, BigDecimal precioMax,
+                                                                  String sort, String cursor, int size) {
+            CatalogoCursor.Orden orden = CatalogoCursor.Orden.desde(sort);
+            int limite = Math.min(Math.max(size, 1), CATALOGO_SIZE_MAX);
+
+            TenantInfo info = tenantSlugCache.resolver(tiendaSlug).orElse(null);
+            if (info == null || !info.isActiva()) {
+                return new CatalogoPaginaResponse(List.of(), limite, false, null);
+            }
+
+            CatalogoCursor desde = (cursor == null || cursor.isBlank()) ? null : CatalogoCursor.decodificar(cursor, orden);
+            boolean primera = desde == null;
+            Integer tiendaId = info.tiendaId();
+            int categoria = categoriaId != null ? categoriaId : 0;
+            BigDecimal min = precioMin != null ? precioMin : BigDecimal.ZERO;
+            BigDecimal max = precioMax != null ? precioMax : CATALOGO_PRECIO_MAX;
+            Integer cursorId = primera ? 0 : desde.id();
+
+            // Se pide una fila de más para saber si hay otra página
+            List<Object[]> rows = switch (orden) {
+                case PRICE -> productoRepository.findCatalogoPorPrecioAsc(tiendaId, categoria, min, max,
+                        primera, primera ? BigDecimal.ZERO : desde.valorDecimal(), cursorId, limite + 1);
+                case PRICE_DESC -> productoRepository.findCatalogoPorPrecioDesc(tiendaId, categoria, min, max,
+                        primera, primera ? BigDecimal.ZERO : desde.valorDecimal(), cursorId, limite + 1);
+                case STOCK -> productoRepository.findCatalogoPorStock(tiendaId, categoria, min, max,
+                        primera, primera ? 0L : desde.valorLong(), cursorId, limite + 1);
+                case NEWEST -> productoRepository.findCatalogoMasNuevos(tiendaId, categoria, min, max,
+                        primera, cursorId, limite + 1);
+            };
+
+            boolean hasNext = rows.size() > limite;
+            List<ProductoCardResponse> cards = rows.stream()
+                    .limit(limite)
+                    .map(this::toCatalogoCard)
+                    .toList();
+            descontarReservas(tiendaSlug, cards);
+
+            String nextCursor = null;
+            if (hasNext) {
+                ProductoCardResponse ultima = cards.get(cards.size() - 1);
+                String valor = switch (orden) {
+                    case PRICE, PRICE_DESC -> ultima.getPrecioMinimo().toPlainString();
+                    case STOCK -> String.valueOf(ultima.getStockTotal());
+                    case NEWEST -> "";
+                };
+                nextCursor = new CatalogoCursor(orden, valor, ultima.getId()).codificar();
+            }
+
+            return new CatalogoPaginaResponse(cards, limite, hasNext, nextCursor);
+        }
+
+        // Fila agregada (ver ProductoRepository.CATALOGO_BASE): las variantes no viajan en el listado
+        private ProductoCardResponse toCatalogoCard(Object[] row) {
+            ProductoCardResponse dto = new ProductoCardResponse();
+            dto.setId(((Number) row[0]).intValue());
+            dto.setNombre((String) row[1]);
+            dto.setSlug((String) row[2]);
+            dto.setNombreCategoria((String) row[3]);
+            dto.setPrecioMinimo(row[4] != null ? new BigDecimal(row[4].toString()) : BigDecimal.ZERO);
+            dto.setStockTotal(row[5] != null ? ((Number) row[5]).intValue() : 0);
+            dto.setStockDisponible(dto.getStockTotal());
+            dto.setImagenPrincipal(row[6] != null
+                    ? (String) row[6]
+                    : "https://placehold.co/800x800/eeeeee/999999.png?text=Sin+Imagen");
+            dto.setVariantes(List.of());
+            return dto;
+        }
+
+        private List<ProductoCardResponse> construirCatalogo(String tiendaSlug) {
             List<Object[]> rows = productoRepository.findRawCatalogByTiendaSlug(tiendaSlug);
             Map<Integer, ProductoCardResponse> map = new LinkedHashMap<>();
 
@@ -411,8 +645,10 @@
 
                 if (varianteActivo && precio != null) {
                     ProductoCardResponse.VarianteCard v = new ProductoCardResponse.VarianteCard();
+                    v.setId((Integer) row[9]);
                     v.setPrecio(precio);
                     v.setStock(stock);
+                    v.setStockDisponible(stock);
                     v.setImagenUrl(imagenUrl);
                     v.setActivo(true);
                     p.getVariantes().add(v);
@@ -427,9 +663,101 @@
         }
 
 
+        // Sin transacción propia: en el caso normal sale de ProductoDetalleCache
         @Override
-        @Transactional(readOnly = true)
+        @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
         public ProductoCardResponse findByTiendaSlugAndProductoSlug(String tiendaSlug, String productoSlug) {
+            TenantInfo info = tenantSlugCache.resolver(tiendaSlug)
+                    .filter(TenantInfo::isActiva)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado o tienda inactiva"));
+
+            ProductoCardResponse resultado = productoDetalleCache.get(info.tiendaId(), productoSlug,
+                    () -> construirDetalle(tiendaSlug, productoSlug));
+
+            if (resultado.getStockTotal() <= 0) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "El producto no tiene stock disponible.");
+            }
+
+            return conReservas(List.of(resultado), disponiblesConReserva(List.of(resultado))).get(0);
+        }
+
+        // ==================== RESERVAS DE CARRITOS SOBRE EL CATÁLOGO ====================
+
+        // varianteId -> stock disponible, solo de las variantes que tienen reservas
+        private Map<Integer, Integer> disponiblesConReserva(List<ProductoCardResponse> productos) {
+            Map<Integer, Integer> disponibles = new HashMap<>();
+            for (ProductoCardResponse p : productos) {
+                for (ProductoCardResponse.VarianteCard v : p.getVariantes()) {
+                    if (v.getId() != null && reservaStockLedger.tieneReservas(v.getId())) {
+                        disponibles.put(v.getId(), reservaStockLedger.disponible(v.getId(), v.getStock()));
+                    }
+                }
+            }
+            return disponibles;
+        }
+
+        // Las cards del snapshot y del detalle son compartidas: solo se copian las que tienen variantes reservadas
+        private List<ProductoCardResponse> conReservas(List<ProductoCardResponse> productos,
+                                                       Map<Integer, Integer> disponibles) {
+            if (disponibles.isEmpty()) {
+                return productos;
+            }
+            return productos.stream().map(p -> conReservas(p, disponibles)).toList();
+        }
+
+        // El listado por cursor viene agregado de la BD: lo reservado se toma de las cards del snapshot
+        private void descontarReservas(String tiendaSlug, List<ProductoCardResponse> cards) {
+            if (cards.isEmpty() || !reservaStockLedger.hayReservas()) {
+                return;
+            }
+            CatalogoSnapshot snapshot = snapshotPublico(tiendaSlug);
+            for (ProductoCardResponse card : cards) {
+                ProductoCardResponse completo = snapshot.producto(card.getId());
+                if (completo == null) continue;
+                ProductoCardResponse conReserva = conReservas(completo, disponiblesConReserva(List.of(completo)));
+                int reservado = conReserva.getStockTotal() - conReserva.getStockDisponible();
+                card.setStockDisponible(Math.max(card.getStockTotal() - reservado, 0));
+            }
+        }
+
+        private ProductoCardResponse conReservas(ProductoCardResponse card, Map<Integer, Integer> disponibles) {
+            boolean hayReservas = card.getVariantes().stream()
+                    .anyMatch(v -> disponibles.containsKey(v.getId()));
+            if (!hayReservas) {
+                return card;
+            }
+
+            List<ProductoCardResponse.VarianteCard> variantes = card.getVariantes().stream()
+                    .map(v -> ProductoCardResponse.VarianteCard.builder()
+                            .id(v.getId())
+                            .precio(v.getPrecio())
+                            .stock(v.getStock())
+                            .stockDisponible(disponibles.getOrDefault(v.getId(), v.getStock()))
+                            .imagenUrl(v.getImagenUrl())
+                            .activo(v.isActivo())
+                            .descripcion_corta(v.getDescripcion_corta())
+                            .precio_anterior(v.getPrecio_anterior())
+                            .atributos(v.getAtributos())
+                            .build())
+                    .toList();
+
+            return ProductoCardResponse.builder()
+                    .id(card.getId())
+                    .nombre(card.getNombre())
+                    .slug(card.getSlug())
+                    .nombreCategoria(card.getNombreCategoria())
+                    .precioMinimo(card.getPrecioMinimo())
+                    .stockTotal(card.getStockTotal())
+                    .stockDisponible(variantes.stream()
+                            .filter(ProductoCardResponse.VarianteCard::isActivo)
+                            .mapToInt(ProductoCardResponse.VarianteCard::getStockDisponible)
+                            .sum())
+                    .imagenPrincipal(card.getImagenPrincipal())
+                    .variantes(variantes)
+                    .build();
+        }
+
+        private ProductoCardResponse construirDetalle(String tiendaSlug, String productoSlug) {
             List<Object[]> rows = productoRepository.findRawDetailBySlugs(tiendaSlug, productoSlug);
 
             if (rows.isEmpty()) {
@@ -441,75 +769,54 @@
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "El producto no está disponible.");
             }
 
-            Map<Integer, ProductoCardResponse> map = new LinkedHashMap<>();
+            // Todas las filas son del mismo producto (una por variante × atributo)
+            Object[] primera = rows.get(0);
+            ProductoCardResponse resultado = new ProductoCardResponse();
+            resultado.setId((Integer) primera[1]);
+            resultado.setNombre((String) primera[2]);
+            resultado.setSlug((String) primera[3]);
+            resultado.setNombreCategoria((String) primera[4]);
+
+            // Índice por id en lugar de buscar la variante en la lista por cada fila
+            Map<Integer, ProductoCardResponse.VarianteCard> variantesPorId = new LinkedHashMap<>();
 
             for (Object[] row : rows) {
                 Integer varianteId     = (Integer) row[0];
-                Integer productoId     = (Integer) row[1];
-                String nombre          = (String)  row[2];
-                String slug            = (String)  row[3];
-                String nombreCategoria = (String)  row[4];
-
-                // ── Corrección importante aquí ────────────────────────────
                 BigDecimal precio      = row[5] != null ? new BigDecimal(row[5].toString()) : null;
-                //                                                   ↑↑↑↑↑
-                //                                                   ¡Ahora sí es el índice correcto!
-
                 Integer stock          = row[6] != null ? (Integer) row[6] : 0;
                 String imagenUrl       = (String)  row[7];
                 Boolean varianteActivo = row[8] != null ? (Boolean) row[8] : false;
 
-                ProductoCardResponse p = map.computeIfAbsent(productoId, k -> {
-                    ProductoCardResponse dto = new ProductoCardResponse();
-                    dto.setId(productoId);
-                    dto.setNombre(nombre);
-                    dto.setSlug(slug);
-                    dto.setNombreCategoria(nombreCategoria);
-                    dto.setVariantes(new ArrayList<>());
-                    return dto;
+                if (!varianteActivo || precio == null) {
+                    continue;
+                }
+
+                ProductoCardResponse.VarianteCard variante = variantesPorId.computeIfAbsent(varianteId, vid -> {
+                    ProductoCardResponse.VarianteCard v = new ProductoCardResponse.VarianteCard();
+                    v.setId(vid);
+                    v.setPrecio(precio);
+                    v.setStock(stock);
+                    v.setStockDisponible(stock);
+                    v.setImagenUrl(imagenUrl);
+                    v.setActivo(true);
+                    v.setPrecio_anterior(row[10] != null ? new BigDecimal(row[10].toString()) : null);
+                    v.setDescripcion_corta((String) row[11]);
+                    v.setAtributos(new ArrayList<>());
+                    return v;
                 });
 
-                if (varianteActivo && precio != null) {
-                    ProductoCardResponse.VarianteCard variante = p.getVariantes().stream()
-                            .filter(v -> Objects.equals(v.getId(), varianteId))
-                            .findFirst()
-                            .orElseGet(() -> {
-                                ProductoCardResponse.VarianteCard v = new ProductoCardResponse.VarianteCard();
-                                v.setId(varianteId);
-                                v.setPrecio(precio);
-                                v.setStock(stock);
-                                v.setImagenUrl(imagenUrl);
-                                v.setActivo(true);
-                                v.setPrecio_anterior(null);
-                                v.setDescripcion_corta(null);
-                                v.setAtributos(new ArrayList<>());
-                                p.getVariantes().add(v);
-                                return v;
-                            });
-
-                    BigDecimal precioAnterior = row[10] != null ? new BigDecimal(row[10].toString()) : null;
-                    String descCorta = (String) row[11];
-                    variante.setPrecio_anterior(precioAnterior);
-                    variante.setDescripcion_corta(descCorta);
-
-                    String attrNombre = (String) row[12];
-                    String attrValor = (String) row[13];
-                    if (attrNombre != null && attrValor != null) {
-                        var attr = new ProductoCardResponse.VarianteCard.AtributoValorDTO();
-                        attr.setAtributoNombre(attrNombre);
-                        attr.setValor(attrValor);
-                        variante.getAtributos().add(attr);
-                    }
+                String attrNombre = (String) row[12];
+                String attrValor = (String) row[13];
+                if (attrNombre != null && attrValor != null) {
+                    var attr = new ProductoCardResponse.VarianteCard.AtributoValorDTO();
+                    attr.setAtributoNombre(attrNombre);
+                    attr.setValor(attrValor);
+                    variante.getAtributos().add(attr);
                 }
             }
 
-            ProductoCardResponse resultado = map.values().iterator().next();
+            resultado.setVariantes(new ArrayList<>(variantesPorId.values()));
             calcularCamposDerivados(resultado);
-
-            if (resultado.getStockTotal() <= 0) {
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "El producto no tiene stock disponible.");
-            }
-
             return resultado;
         }
         private void calcularCamposDerivados(ProductoCardResponse p) {
@@ -519,6 +826,7 @@
     
             int stockTotal = activas.stream().mapToInt(ProductoCardResponse.VarianteCard::getStock).sum();
             p.setStockTotal(stockTotal);
+            p.setStockDisponible(stockTotal);
     
             activas.stream()
                     .map(ProductoCardResponse.VarianteCard::getPrecio)
@@ -610,72 +918,70 @@
         @Override
         @Transactional(readOnly = true)
         public Page<ProductoAdminListDTO> listarTodosAdminList(Pageable pageable) {
-            return productoRepository.findAll(pageable)
+            return productoRepository.findAdminList(pageable)
                     .map(this::toAdminListDTO);
         }
-
+    
         @Override
         @Transactional(readOnly = true)
         public Page<ProductoAdminListDTO> buscarTodosPorNombreAdminList(String nombre, Pageable pageable) {
-            return productoRepository.findByNombreContainingIgnoreCase(nombre.trim(), pageable)
+            return productoRepository.findAdminListByNombre(nombre.trim(), pageable)
                     .map(this::toAdminListDTO);
         }
-
+    
         @Override
         @Transactional(readOnly = true)
         public Page<ProductoAdminListDTO> listarPorTiendaAdminList(Integer tiendaId, Pageable pageable) {
-            return productoRepository.findAllByTiendaId(tiendaId, pageable)
+            return productoRepository.findAdminListByTiendaId(tiendaId, pageable)
                     .map(this::toAdminListDTO);
         }
-
+    
         @Override
         @Transactional(readOnly = true)
         public Page<ProductoAdminListDTO> buscarPorNombreYTiendaAdminList(Integer tiendaId, String nombre, Pageable pageable) {
-            return productoRepository.findByNombreContainingIgnoreCaseAndTenantId(nombre.trim(), tiendaId, pageable)
-                    .map(this::toAdminListDTO);
+            return buscarEnIndice(tiendaId, nombre, pageable, ids -> productoRepository.findAdminListByIdIn(ids).stream()
+                    .map(this::toAdminListDTO)
+                    .collect(Collectors.toMap(ProductoAdminListDTO::getId, dto -> dto)));
         }
     
-        private ProductoAdminListDTO toAdminListDTO(Producto p) {
-            var variantes = p.getVariantes() != null ? p.getVariantes() : List.<ProductoVariante>of();
-            var activas = variantes.stream().filter(ProductoVariante::isActivo).toList();
-    
-            BigDecimal precioMin = activas.stream()
-                    .map(ProductoVariante::getPrecio)
-                    .filter(Objects::nonNull)
-                    .min(BigDecimal::compareTo)
-                    .orElse(BigDecimal.ZERO);
+        // Ids ordenados por relevancia desde ProductoSearchIndex; la BD solo carga los de la página
+        private <T> Page<T> buscarEnIndice(Integer tiendaId, String nombre, Pageable pageable,
+                                           Function<List<Integer>, Map<Integer, T>> cargar) {
+            Page<Integer> ids = productoSearchIndex.buscar(tiendaId, nombre, pageable);
+            if (ids.getContent().isEmpty()) {
+                return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+            }
     
-            BigDecimal precioMax = activas.stream()
-                    .map(ProductoVariante::getPrecio)
+            Map<Integer, T> porId = cargar.apply(ids.getContent());
+            List<T> contenido = ids.getContent().stream()
+                    .map(porId::get)
                     .filter(Objects::nonNull)
-                    .max(BigDecimal::compareTo)
-                    .orElse(BigDecimal.ZERO);
-    
-            int stockTotal = activas.stream()
-                    .mapToInt(ProductoVariante::getStock)
-                    .sum();
+                    .toList();
+            return new PageImpl<>(contenido, pageable, ids.getTotalElements());
+        }
     
-            String imagenPrincipal = activas.stream()
-                    .map(ProductoVariante::getImagenUrl)
-                    .filter(url -> url != null && !url.contains("placehold.co"))
-                    .findFirst()
-                    .orElse("https://placehold.co/400x400?text=Sin+Imagen");
+        // Fila de ProductoRepository.ADMIN_LIST_SELECT
+        private ProductoAdminListDTO toAdminListDTO(Object[] fila) {
+            BigDecimal precioMin = (BigDecimal) fila[8];
+            BigDecimal precioMax = (BigDecimal) fila[9];
+            String imagen = (String) fila[11];
+            int cantidadVariantes = ((Number) fila[12]).intValue();
     
             return ProductoAdminListDTO.builder()
-                    .id(p.getId())
-                    .nombre(p.getNombre())
-                    .slug(p.getSlug())
-                    .categoriaId(p.getCategoria().getId())
-                    .categoriaNombre(p.getCategoria().getNombre())
-                    .tiendaId(p.getTienda().getId())
-                    .tiendaNombre(p.getTienda().getNombre()) // ← importante para admin
-                    .activo(p.isActivo())
-                    .precioMinimo(precioMin)
-                    .precioMaximo(precioMax)
-                    .stockTotal(stockTotal)
-                    .imagenPrincipal(imagenPrincipal)
-                    .tieneVariantes(!variantes.isEmpty())
-                    .cantidadVariantes(variantes.size())
+                    .id((Integer) fila[0])
+                    .nombre((String) fila[1])
+                    .slug((String) fila[2])
+                    .categoriaId((Integer) fila[3])
+                    .categoriaNombre((String) fila[4])
+                    .tiendaId((Integer) fila[5])
+                    .tiendaNombre((String) fila[6]) // ← importante para admin
+                    .activo((Boolean) fila[7])
+                    .precioMinimo(precioMin != null ? precioMin : BigDecimal.ZERO)
+                    .precioMaximo(precioMax != null ? precioMax : BigDecimal.ZERO)
+                    .stockTotal(((Number) fila[10]).intValue())
+                    .imagenPrincipal(imagen != null ? imagen : "https://placehold.co/400x400?text=Sin+Imagen")
+                    .tieneVariantes(cantidadVariantes > 0)
+                    .cantidadVariantes(cantidadVariantes)
                     .build();
         }
     
@@ -8,10 +8,12 @@ import com.proyecto.StoreCollection.dto.response.ProductoVarianteResponse;
 import com.proyecto.StoreCollection.entity.AtributoValor;
 import com.proyecto.StoreCollection.entity.Producto;
 import com.proyecto.StoreCollection.entity.ProductoVariante;
+import com.proyecto.StoreCollection.event.CatalogoModificadoEvent;
 import com.proyecto.StoreCollection.repository.AtributoValorRepository;
 import com.proyecto.StoreCollection.repository.ProductoRepository;
 import com.proyecto.StoreCollection.repository.ProductoVarianteRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -30,6 +32,7 @@ public class ProductoVarianteServiceImpl implements ProductoVarianteService {
     private final ProductoRepository productoRepository;
     private final AtributoValorRepository atributoValorRepository;
     private final TiendaService tiendaService; // ← para seguridad
+    private final ApplicationEventPublisher eventPublisher;
 
     // PÚBLICO: catálogo
     @Override
@@ -97,12 +100,17 @@ public class ProductoVarianteServiceImpl implements ProductoVarianteService {
             v.setAtributos(Set.of());
         }
 
-        return toResponse(varianteRepository.save(v));
+        ProductoVariante saved = varianteRepository.save(v);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(p.getTienda().getId(), p.getId()));
+        return toResponse(saved);
     }
 
     @Override
     public void deleteById(Integer id) {
-        varianteRepository.delete(varianteRepository.getByIdAndTenant(id));
+        ProductoVariante v = varianteRepository.getByIdAndTenant(id);
+        varianteRepository.delete(v);
+        Producto p = v.getProducto();
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(p.getTienda().getId(), p.getId()));
     }
 
     @Override
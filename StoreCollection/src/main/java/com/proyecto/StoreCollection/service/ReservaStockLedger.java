@@ -0,0 +1,400 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.event.BoletaAtendidaEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reservas de stock en memoria para los items del carrito, con vencimiento.
+ * disponible = stock en BD - reservado por otros carritos (sin escribir en la BD por cada clic).
+ * Los locks van por franjas de varianteId; las reservas vencidas las quita un barrido periódico.
+ * Es por nodo: con varias instancias cada una solo ve las reservas de sus propios carritos.
+ */
+@Slf4j
+@Component
+public class ReservaStockLedger {
+
+    private static final int FRANJAS = 64;
+
+    /** Línea de carrito a reservar junto con las demás (todas o ninguna). */
+    public record Linea(Integer carritoId, Integer varianteId, int cantidad, int stock) {
+    }
+
+    /**
+     * Reservas que tomó reservarSesion() antes de escribir el carrito. Si la escritura falla,
+     * deshacer() deja las de antes; si no, confirmar() pasa las líneas nuevas a su id real.
+     */
+    public final class CambioSesion {
+
+        private final Map<Integer, Integer> claves = new HashMap<>();                 // varianteId -> clave puesta
+        private final Map<Integer, Map<Integer, Reserva>> anteriores = new HashMap<>(); // varianteId -> las de la sesión
+
+        /** Ids asignados a las líneas que eran nuevas, por varianteId. */
+        public void confirmar(Map<Integer, Integer> idsPorVariante) {
+            idsPorVariante.forEach((varianteId, carritoId) -> {
+                Integer clave = claves.get(varianteId);
+                if (clave == null || clave.equals(carritoId)) return;
+                ReentrantLock lock = lockDe(varianteId);
+                lock.lock();
+                try {
+                    Map<Integer, Reserva> porCarrito = reservas.get(varianteId);
+                    Reserva reserva = porCarrito != null ? porCarrito.remove(clave) : null;
+                    if (reserva != null) porCarrito.put(carritoId, reserva);
+                } finally {
+                    lock.unlock();
+                }
+            });
+        }
+
+        public void deshacer() {
+            claves.forEach((varianteId, clave) -> {
+                ReentrantLock lock = lockDe(varianteId);
+                lock.lock();
+                try {
+                    Map<Integer, Reserva> porCarrito = reservas.computeIfAbsent(varianteId, k -> new HashMap<>());
+                    porCarrito.remove(clave);
+                    porCarrito.putAll(anteriores.getOrDefault(varianteId, Map.of()));
+                    if (porCarrito.isEmpty()) reservas.remove(varianteId);
+                } finally {
+                    lock.unlock();
+                }
+            });
+        }
+    }
+
+    // checkout: el pedido ya se envió a la tienda por WhatsApp y espera que lo atiendan
+    private record Reserva(String sessionId, int cantidad, long expiraEn, boolean checkout) {
+        boolean vencida(long ahora) {
+            return ahora >= expiraEn;
+        }
+    }
+
+    private final ReentrantLock[] locks = new ReentrantLock[FRANJAS];
+
+    // varianteId -> (carritoId -> reserva); el mapa interno solo se toca con el lock de su franja
+    private final ConcurrentHashMap<Integer, Map<Integer, Reserva>> reservas = new ConcurrentHashMap<>();
+
+    // Claves de las líneas que todavía no tienen id (los ids reales son positivos)
+    private final AtomicInteger provisorias = new AtomicInteger();
+
+    private final long ttlMillis;
+    private final long checkoutTtlMillis;
+
+    public ReservaStockLedger(@Value("${app.reservas.ttl-seconds:900}") long ttlSeconds,
+                              @Value("${app.reservas.checkout-ttl-seconds:3600}") long checkoutTtlSeconds) {
+        for (int i = 0; i < FRANJAS; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.ttlMillis = ttlSeconds * 1000;
+        this.checkoutTtlMillis = checkoutTtlSeconds * 1000;
+    }
+
+    // ======================== RESERVAR ========================
+
+    /** Reserva (o ajusta) la cantidad de un item del carrito; falla si otros carritos ya tomaron el stock. */
+    public void reservar(Integer varianteId, Integer carritoId, String sessionId, int cantidad, int stock) {
+        ReentrantLock lock = lockDe(varianteId);
+        lock.lock();
+        try {
+            long ahora = System.currentTimeMillis();
+            int disponible = stock - reservadoPorOtros(varianteId, carritoId, ahora);
+            if (disponible < cantidad) {
+                throw new IllegalStateException("Stock insuficiente. Disponible: " + Math.max(disponible, 0)
+                        + ", solicitado: " + cantidad);
+            }
+            reservas.computeIfAbsent(varianteId, k -> new HashMap<>())
+                    .put(carritoId, new Reserva(sessionId, cantidad, ahora + ttlMillis, false));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Reserva todas las líneas de un carrito de una vez; si alguna no alcanza no se toca ninguna. */
+    public void reservarTodas(String sessionId, List<Linea> lineas) {
+        reservarTodas(sessionId, lineas, ttlMillis, false);
+    }
+
+    /** Renueva las reservas del carrito al ir al checkout, con un vencimiento más largo. */
+    public void reservarCheckout(String sessionId, List<Linea> lineas) {
+        reservarTodas(sessionId, lineas, checkoutTtlMillis, true);
+    }
+
+    private void reservarTodas(String sessionId, List<Linea> lineas, long ttl, boolean checkout) {
+        List<ReentrantLock> tomados = bloquear(lineas);
+        try {
+            long ahora = System.currentTimeMillis();
+            for (Linea l : lineas) {
+                int disponible = l.stock() - reservadoPorOtros(l.varianteId(), l.carritoId(), ahora);
+                if (disponible < l.cantidad()) {
+                    throw new IllegalStateException("Stock insuficiente para la variante " + l.varianteId()
+                            + ". Disponible: " + Math.max(disponible, 0) + ", en el carrito: " + l.cantidad());
+                }
+            }
+            for (Linea l : lineas) {
+                reservas.computeIfAbsent(l.varianteId(), k -> new HashMap<>())
+                        .put(l.carritoId(), new Reserva(sessionId, l.cantidad(), ahora + ttl, checkout));
+            }
+        } finally {
+            tomados.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    /**
+     * Reserva el carrito completo de una sincronización antes de escribirlo: cada línea reemplaza
+     * lo que la sesión tenía reservado de esa variante y solo compite con las otras sesiones.
+     * Las líneas sin carritoId (altas) quedan con una clave provisoria hasta CambioSesion.confirmar().
+     */
+    public CambioSesion reservarSesion(String sessionId, List<Linea> lineas) {
+        List<ReentrantLock> tomados = bloquear(lineas);
+        try {
+            long ahora = System.currentTimeMillis();
+            for (Linea l : lineas) {
+                int disponible = l.stock() - reservadoPorOtrasSesiones(l.varianteId(), sessionId, ahora);
+                if (disponible < l.cantidad()) {
+                    throw new IllegalStateException("Stock insuficiente para la variante " + l.varianteId()
+                            + ". Disponible: " + Math.max(disponible, 0) + ", en el carrito: " + l.cantidad());
+                }
+            }
+            CambioSesion cambio = new CambioSesion();
+            for (Linea l : lineas) {
+                Map<Integer, Reserva> porCarrito = reservas.computeIfAbsent(l.varianteId(), k -> new HashMap<>());
+                Map<Integer, Reserva> previas = new HashMap<>();
+                porCarrito.entrySet().removeIf(e -> {
+                    if (!Objects.equals(sessionId, e.getValue().sessionId())) return false;
+                    previas.put(e.getKey(), e.getValue());
+                    return true;
+                });
+                Integer clave = l.carritoId() != null ? l.carritoId() : provisorias.decrementAndGet();
+                porCarrito.put(clave, new Reserva(sessionId, l.cantidad(), ahora + ttlMillis, false));
+                cambio.claves.put(l.varianteId(), clave);
+                cambio.anteriores.put(l.varianteId(), previas);
+            }
+            return cambio;
+        } finally {
+            tomados.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    // ======================== LIBERAR ========================
+
+    public void liberar(Integer varianteId, Integer carritoId) {
+        ReentrantLock lock = lockDe(varianteId);
+        lock.lock();
+        try {
+            Map<Integer, Reserva> porCarrito = reservas.get(varianteId);
+            if (porCarrito == null) return;
+            porCarrito.remove(carritoId);
+            if (porCarrito.isEmpty()) reservas.remove(varianteId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void liberarSesion(String sessionId, Iterable<Integer> varianteIds) {
+        if (sessionId == null) return;
+        for (Integer varianteId : varianteIds) {
+            ReentrantLock lock = lockDe(varianteId);
+            lock.lock();
+            try {
+                Map<Integer, Reserva> porCarrito = reservas.get(varianteId);
+                if (porCarrito == null) continue;
+                porCarrito.values().removeIf(r -> sessionId.equals(r.sessionId()));
+                if (porCarrito.isEmpty()) reservas.remove(varianteId);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Suelta lo que cubre una venta: las reservas de su sesión, o sin sesión (venta registrada
+     * desde el panel) las reservas de checkout más antiguas hasta la cantidad vendida.
+     */
+    public void liberarVenta(String sessionId, Map<Integer, Integer> cantidades) {
+        if (sessionId != null) {
+            liberarSesion(sessionId, cantidades.keySet());
+            return;
+        }
+        cantidades.forEach((varianteId, vendida) -> {
+            ReentrantLock lock = lockDe(varianteId);
+            lock.lock();
+            try {
+                Map<Integer, Reserva> porCarrito = reservas.get(varianteId);
+                if (porCarrito == null) return;
+                List<Map.Entry<Integer, Reserva>> checkouts = porCarrito.entrySet().stream()
+                        .filter(e -> e.getValue().checkout())
+                        .sorted(Comparator.comparingLong(e -> e.getValue().expiraEn()))
+                        .toList();
+                int restante = vendida;
+                for (Map.Entry<Integer, Reserva> e : checkouts) {
+                    if (restante <= 0) break;
+                    Reserva r = e.getValue();
+                    if (r.cantidad() <= restante) {
+                        porCarrito.remove(e.getKey());
+                    } else {
+                        porCarrito.put(e.getKey(), new Reserva(r.sessionId(), r.cantidad() - restante,
+                                r.expiraEn(), true));
+                    }
+                    restante -= r.cantidad();
+                }
+                if (porCarrito.isEmpty()) reservas.remove(varianteId);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    // El stock ya salió de la BD: mantener la reserva lo descontaría dos veces
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBoletaAtendida(BoletaAtendidaEvent event) {
+        liberarVenta(event.sessionId(), event.cantidades());
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservas.barrido-ms:30000}")
+    public void barrerVencidas() {
+        long ahora = System.currentTimeMillis();
+        int quitadas = 0;
+        for (Integer varianteId : reservas.keySet()) {
+            ReentrantLock lock = lockDe(varianteId);
+            lock.lock();
+            try {
+                Map<Integer, Reserva> porCarrito = reservas.get(varianteId);
+                if (porCarrito == null) continue;
+                Iterator<Reserva> it = porCarrito.values().iterator();
+                while (it.hasNext()) {
+                    if (it.next().vencida(ahora)) {
+                        it.remove();
+                        quitadas++;
+                    }
+                }
+                if (porCarrito.isEmpty()) reservas.remove(varianteId);
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (quitadas > 0) {
+            log.debug("Reservas de stock vencidas liberadas: {}", quitadas);
+        }
+    }
+
+    // ======================== CONSULTA ========================
+
+    public int reservado(Integer varianteId) {
+        return reservadoPorOtros(varianteId, null);
+    }
+
+    public int disponible(Integer varianteId, int stock) {
+        return Math.max(stock - reservado(varianteId), 0);
+    }
+
+    /** Lo que puede llevar un item del carrito: su propia reserva no le resta. */
+    public int disponiblePara(Integer varianteId, Integer carritoId, int stock) {
+        return Math.max(stock - reservadoPorOtros(varianteId, carritoId), 0);
+    }
+
+    /**
+     * Lo que puede vender una boleta del panel. Con sesión, sus propias reservas no le restan;
+     * sin sesión tampoco las de checkout (la tienda está atendiendo esos pedidos), pero sí los
+     * carritos que todavía no hicieron el pedido.
+     */
+    public int disponibleParaVenta(Integer varianteId, String sessionId, int stock) {
+        if (!reservas.containsKey(varianteId)) return Math.max(stock, 0);
+        ReentrantLock lock = lockDe(varianteId);
+        lock.lock();
+        try {
+            Map<Integer, Reserva> porCarrito = reservas.get(varianteId);
+            if (porCarrito == null) return Math.max(stock, 0);
+            long ahora = System.currentTimeMillis();
+            int reservado = 0;
+            for (Reserva r : porCarrito.values()) {
+                boolean propia = sessionId != null ? sessionId.equals(r.sessionId()) : r.checkout();
+                if (!r.vencida(ahora) && !propia) {
+                    reservado += r.cantidad();
+                }
+            }
+            return Math.max(stock - reservado, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean tieneReservas(Integer varianteId) {
+        return reservas.containsKey(varianteId);
+    }
+
+    public boolean hayReservas() {
+        return !reservas.isEmpty();
+    }
+
+    private int reservadoPorOtros(Integer varianteId, Integer carritoId) {
+        if (!reservas.containsKey(varianteId)) return 0;
+        ReentrantLock lock = lockDe(varianteId);
+        lock.lock();
+        try {
+            return reservadoPorOtros(varianteId, carritoId, System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Llamar con el lock de la franja tomado
+    private int reservadoPorOtrasSesiones(Integer varianteId, String sessionId, long ahora) {
+        Map<Integer, Reserva> porCarrito = reservas.get(varianteId);
+        if (porCarrito == null) return 0;
+        int total = 0;
+        for (Reserva r : porCarrito.values()) {
+            if (!Objects.equals(sessionId, r.sessionId()) && !r.vencida(ahora)) {
+                total += r.cantidad();
+            }
+        }
+        return total;
+    }
+
+    // Llamar con el lock de la franja tomado
+    private int reservadoPorOtros(Integer varianteId, Integer carritoId, long ahora) {
+        Map<Integer, Reserva> porCarrito = reservas.get(varianteId);
+        if (porCarrito == null) return 0;
+        int total = 0;
+        for (Map.Entry<Integer, Reserva> e : porCarrito.entrySet()) {
+            if (!e.getKey().equals(carritoId) && !e.getValue().vencida(ahora)) {
+                total += e.getValue().cantidad();
+            }
+        }
+        return total;
+    }
+
+    // ======================== LOCKS ========================
+
+    private ReentrantLock lockDe(Integer varianteId) {
+        return locks[Math.floorMod(varianteId.hashCode(), FRANJAS)];
+    }
+
+    // Siempre en orden de franja para que dos checkouts no se bloqueen entre sí
+    private List<ReentrantLock> bloquear(List<Linea> lineas) {
+        TreeSet<Integer> franjas = new TreeSet<>();
+        for (Linea l : lineas) {
+            franjas.add(Math.floorMod(l.varianteId().hashCode(), FRANJAS));
+        }
+        List<ReentrantLock> tomados = new ArrayList<>(franjas.size());
+        for (Integer f : franjas) {
+            locks[f].lock();
+            tomados.add(locks[f]);
+        }
+        return tomados;
+    }
+}
@@ -13,6 +13,8 @@ import java.util.Optional;
 public interface TiendaService {
     Page<TiendaResponse> findAll(Pageable pageable);
     Page<TiendaResponse> findAllPublicasActivas(Pageable pageable);
+    // Para el índice de búsqueda: vacío si la tienda no existe o no está activa
+    Optional<TiendaResponse> findPublicaActivaById(Integer id);
     TiendaResponse findById(Integer id);
     Tienda getEntityById(Integer id);
     //TiendaResponse findBySlug(String slug);
@@ -7,11 +7,13 @@ import com.proyecto.StoreCollection.dto.response.TiendaResponse;
 import com.proyecto.StoreCollection.entity.Plan;
 import com.proyecto.StoreCollection.entity.Tienda;
 import com.proyecto.StoreCollection.entity.Usuario;
+import com.proyecto.StoreCollection.event.TiendaModificadaEvent;
 import com.proyecto.StoreCollection.repository.PlanRepository;
 import com.proyecto.StoreCollection.repository.TiendaRepository;
 import com.proyecto.StoreCollection.repository.UsuarioRepository;
 import com.proyecto.StoreCollection.service.Cloudinary.CloudinaryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -40,6 +42,7 @@ public class TiendaServiceImpl implements TiendaService {
     private final PlanRepository planRepository;
     private final UsuarioRepository usuarioRepository;
     private final CloudinaryService cloudinaryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ======================== CONSULTAS ========================
 
@@ -56,6 +59,14 @@ public class TiendaServiceImpl implements TiendaService {
         return tiendasPage.map(this::toResponse);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TiendaResponse> findPublicaActivaById(Integer id) {
+        return tiendaRepository.findById(id)
+                .filter(Tienda::getActivo)
+                .map(this::toResponse);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public TiendaResponse findById(Integer id) {
@@ -328,6 +339,7 @@ public class TiendaServiceImpl implements TiendaService {
 
         // ======================== GUARDAR ========================
         Tienda saved = tiendaRepository.save(t);
+        eventPublisher.publishEvent(new TiendaModificadaEvent(saved.getId(), saved.getUser().getId()));
         return toResponse(saved);
     }
     // ======================== OTROS ========================
@@ -339,6 +351,7 @@ public class TiendaServiceImpl implements TiendaService {
             throw new RuntimeException("No puedes eliminar una tienda que no es tuya");
         }
         tiendaRepository.delete(tienda);
+        eventPublisher.publishEvent(new TiendaModificadaEvent(id, tienda.getUser().getId()));
     }
 
     @Override
@@ -358,7 +371,9 @@ public class TiendaServiceImpl implements TiendaService {
         Tienda tienda = tiendaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Tienda no encontrada: " + id));
         tienda.setActivo(!tienda.getActivo());
-        return toResponse(tiendaRepository.save(tienda));
+        Tienda saved = tiendaRepository.save(tienda);
+        eventPublisher.publishEvent(new TiendaModificadaEvent(saved.getId(), saved.getUser().getId()));
+        return toResponse(saved);
     }
 
     @Override
@@ -489,6 +504,7 @@ public class TiendaServiceImpl implements TiendaService {
 
         // 8. Guardar y retornar
         Tienda saved = tiendaRepository.save(tienda);
+        eventPublisher.publishEvent(new TiendaModificadaEvent(saved.getId(), saved.getUser().getId()));
         return toResponse(saved);
     }
 }
\ No newline at end of file
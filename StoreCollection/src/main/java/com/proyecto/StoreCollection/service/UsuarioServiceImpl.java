@@ -6,9 +6,12 @@ import com.proyecto.StoreCollection.dto.response.PageResponse;
 import com.proyecto.StoreCollection.dto.response.UsuarioResponse;
 import com.proyecto.StoreCollection.entity.Tienda;
 import com.proyecto.StoreCollection.entity.Usuario;
+import com.proyecto.StoreCollection.event.UsuarioModificadoEvent;
+import com.proyecto.StoreCollection.event.UsuarioModificadoEvent.Revocacion;
 import com.proyecto.StoreCollection.repository.UsuarioRepository;
 import com.proyecto.StoreCollection.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.util.StringUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -22,6 +25,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -32,6 +36,7 @@ public class UsuarioServiceImpl implements UsuarioService {
     private final UsuarioRepository repository;
     private final TiendaService tiendaService; // Para obtener la tienda del OWNER
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     public UsuarioResponse save(UsuarioRequest request) {
         return save(request, null);
@@ -48,6 +53,9 @@ public class UsuarioServiceImpl implements UsuarioService {
                     .orElseThrow(() -> new RuntimeException("Usuario no encontrado: " + id));
         }
 
+        String emailAnterior = usuario.getEmail();
+        Usuario.Rol rolAnterior = usuario.getRol();
+
         usuario.setNombre(request.getNombre());
         usuario.setEmail(request.getEmail());
         usuario.setCelular(request.getCelular());
@@ -60,6 +68,12 @@ public class UsuarioServiceImpl implements UsuarioService {
         }
 
         usuario = repository.save(usuario);
+
+        // Los tokens emitidos llevan el email y el rol anteriores
+        boolean revocar = id != null
+                && (!Objects.equals(emailAnterior, usuario.getEmail()) || rolAnterior != usuario.getRol());
+        eventPublisher.publishEvent(new UsuarioModificadoEvent(usuario.getId(),
+                revocar ? Revocacion.EMITIDOS_HASTA_AHORA : Revocacion.NINGUNA));
         return toResponse(usuario);
     }
     @Override
@@ -146,6 +160,7 @@ public class UsuarioServiceImpl implements UsuarioService {
             throw new RuntimeException("Usuario no encontrado: " + id);
         }
         repository.deleteById(id);
+        eventPublisher.publishEvent(new UsuarioModificadoEvent(id, Revocacion.BLOQUEAR));
     }
 
     private UsuarioResponse toResponse(Usuario u) {
@@ -168,6 +183,10 @@ public class UsuarioServiceImpl implements UsuarioService {
 
         usuario = repository.save(usuario);
 
+        // Desactivado: ningún token vale. Reactivado: solo los emitidos desde ahora
+        eventPublisher.publishEvent(new UsuarioModificadoEvent(usuario.getId(),
+                usuario.isActivo() ? Revocacion.EMITIDOS_HASTA_AHORA : Revocacion.BLOQUEAR));
+
         return toResponse(usuario);
     }
     /// ///////////////////////ESTO ES PARA HASHEAR CONTRSAEÑAS
@@ -0,0 +1,97 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.event.BoletaEstadoCambiadoEvent;
+import com.proyecto.StoreCollection.repository.BoletaRepository;
+import com.proyecto.StoreCollection.repository.TiendaRepository;
+import com.proyecto.StoreCollection.repository.VentaRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mantiene venta_rollup: cada cambio de estado de una boleta se suma/resta en la misma
+ * transacción (si falla el rollup, falla el cambio), y la reconstrucción completa se hace
+ * tienda por tienda, al arrancar con la tabla vacía, por cron o desde el panel de admin.
+ */
+@Slf4j
+@Service
+public class VentaRollupService {
+
+    private final VentaRollupRepository rollupRepository;
+    private final TiendaRepository tiendaRepository;
+    private final BoletaRepository boletaRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean reconstruyendo = new AtomicBoolean();
+
+    public VentaRollupService(VentaRollupRepository rollupRepository,
+                              TiendaRepository tiendaRepository,
+                              BoletaRepository boletaRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.tiendaRepository = tiendaRepository;
+        this.boletaRepository = boletaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // @EventListener (no @TransactionalEventListener): corre dentro de la transacción de la boleta
+    @EventListener
+    public void onBoletaEstadoCambiado(BoletaEstadoCambiadoEvent event) {
+        LocalDate fecha = event.fecha() != null ? event.fecha().toLocalDate() : LocalDate.now();
+        rollupRepository.registrarCambio(event.tiendaId(), fecha, event.estadoAnterior(), event.estadoNuevo(),
+                event.unidades(), event.total() != null ? event.total() : BigDecimal.ZERO);
+    }
+
+    // ======================== RECONSTRUCCIÓN ========================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirSiVacio() {
+        try {
+            if (rollupRepository.count() == 0 && boletaRepository.count() > 0) {
+                log.info("venta_rollup vacía: reconstruyendo desde las boletas");
+                reconstruirTodo();
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo revisar/reconstruir venta_rollup al iniciar: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.rollup.reconstruir-cron:-}")
+    public void reconstruccionProgramada() {
+        reconstruirTodo();
+    }
+
+    /** Recalcula todas las tiendas, cada una en su propia transacción. Devuelve las tiendas procesadas. */
+    public int reconstruirTodo() {
+        if (!reconstruyendo.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una reconstrucción de venta_rollup en curso");
+        }
+        try {
+            int tiendas = 0;
+            for (Integer tiendaId : tiendaRepository.findAllIds()) {
+                try {
+                    reconstruir(tiendaId);
+                    tiendas++;
+                } catch (Exception e) {
+                    log.error("Error reconstruyendo venta_rollup de la tienda {}", tiendaId, e);
+                }
+            }
+            log.info("venta_rollup reconstruida para {} tiendas", tiendas);
+            return tiendas;
+        } finally {
+            reconstruyendo.set(false);
+        }
+    }
+
+    public void reconstruir(Integer tiendaId) {
+        transactionTemplate.executeWithoutResult(status -> rollupRepository.reconstruir(tiendaId));
+    }
+}
@@ -0,0 +1,203 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.cache.TtlCache;
+import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.event.TiendaModificadaEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.function.Supplier;
+
+/**
+ * Armado de los mensajes de WhatsApp (wa.me/?text=...) sin String.format, replace ni URLEncoder por llamada.
+ * Los textos fijos se codifican una vez (Fragmento); el nombre y el número de cada tienda se cachean
+ * ya escapados y codificados; lo variable se escapa y codifica en una sola pasada sobre un buffer por hilo.
+ * La codificación es la misma de URLEncoder (UTF-8, espacio = '+').
+ */
+@Component
+public class WhatsappMensajeTemplate {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int BUFFER_MAX = 16 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(2048));
+
+    /** Texto fijo ya codificado para la URL. */
+    public record Fragmento(String codificado) {
+        public static Fragmento de(String texto) {
+            StringBuilder sb = new StringBuilder(texto.length() * 3);
+            codificar(sb, texto, Escape.NINGUNO);
+            return new Fragmento(sb.toString());
+        }
+    }
+
+    /**
+     * Lo que se reutiliza de cada tienda.
+     * whatsapp es null si el número de la tienda no es válido.
+     */
+    public record FragmentosTienda(String whatsapp, Fragmento nombre, Fragmento nombreEscapado,
+                                   Fragmento nombreMayusculasEscapado) {
+    }
+
+    public enum Escape {
+        NINGUNO(""),
+        BASICO("_*`"),
+        CON_CORCHETES("_*`[]");
+
+        private final String caracteres;
+
+        Escape(String caracteres) {
+            this.caracteres = caracteres;
+        }
+
+        boolean aplica(char c) {
+            return caracteres.indexOf(c) >= 0;
+        }
+    }
+
+    private final TtlCache<Integer, FragmentosTienda> cache;
+
+    public WhatsappMensajeTemplate(CacheRegistry cacheRegistry,
+                                   @Value("${app.cache.whatsapp-tienda.max-size:2000}") int maxSize,
+                                   @Value("${app.cache.whatsapp-tienda.ttl-seconds:3600}") long ttlSeconds) {
+        this.cache = cacheRegistry.crear("whatsapp-tienda", maxSize, ttlSeconds * 1000);
+    }
+
+    public FragmentosTienda fragmentos(Integer tiendaId, Supplier<Tienda> tienda) {
+        return cache.get(tiendaId, id -> armarFragmentos(tienda.get()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTiendaModificada(TiendaModificadaEvent event) {
+        if (event.tiendaId() != null) cache.evict(event.tiendaId());
+    }
+
+    private static FragmentosTienda armarFragmentos(Tienda tienda) {
+        String nombre = tienda.getNombre() != null ? tienda.getNombre() : "";
+        return new FragmentosTienda(
+                normalizarNumeroTienda(tienda.getWhatsapp()),
+                Fragmento.de(nombre),
+                escapado(nombre, Escape.CON_CORCHETES),
+                escapado(nombre.toUpperCase(), Escape.BASICO));
+    }
+
+    private static Fragmento escapado(String texto, Escape escape) {
+        StringBuilder sb = new StringBuilder(texto.length() * 3);
+        codificar(sb, texto, escape);
+        return new Fragmento(sb.toString());
+    }
+
+    // Número de la tienda: solo dígitos, con 51 si vino sin código de país
+    private static String normalizarNumeroTienda(String raw) {
+        if (raw == null) return null;
+        StringBuilder digitos = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') digitos.append(c);
+        }
+        String cleaned = digitos.toString();
+        if (cleaned.startsWith("00")) cleaned = cleaned.substring(2);
+        if (cleaned.length() == 9 && !cleaned.startsWith("51")) cleaned = "51" + cleaned;
+        return (cleaned.length() >= 10 && cleaned.length() <= 14) ? cleaned : null;
+    }
+
+    // ======================== MENSAJE ========================
+
+    /** Empieza un mensaje sobre el buffer del hilo actual (no compartir entre hilos). */
+    public Mensaje nuevoMensaje() {
+        StringBuilder sb = BUFFER.get();
+        if (sb.capacity() > BUFFER_MAX) {
+            sb = new StringBuilder(2048);
+            BUFFER.set(sb);
+        }
+        sb.setLength(0);
+        return new Mensaje(sb);
+    }
+
+    public static final class Mensaje {
+
+        private final StringBuilder sb;
+
+        private Mensaje(StringBuilder sb) {
+            this.sb = sb;
+        }
+
+        public Mensaje add(Fragmento fragmento) {
+            sb.append(fragmento.codificado());
+            return this;
+        }
+
+        public Mensaje texto(String texto) {
+            codificar(sb, texto, Escape.NINGUNO);
+            return this;
+        }
+
+        public Mensaje escapado(String texto, Escape escape) {
+            codificar(sb, texto, escape);
+            return this;
+        }
+
+        public Mensaje numero(long n) {
+            sb.append(n);
+            return this;
+        }
+
+        // Igual que String.format("%.2f"): HALF_UP y punto decimal
+        public Mensaje precio(BigDecimal precio) {
+            sb.append(precio != null ? precio.setScale(2, RoundingMode.HALF_UP).toPlainString() : "0.00");
+            return this;
+        }
+
+        public String url(String numero) {
+            return new StringBuilder(14 + numero.length() + 6 + sb.length())
+                    .append("https://wa.me/").append(numero).append("?text=").append(sb)
+                    .toString();
+        }
+    }
+
+    // ======================== CODIFICACIÓN ========================
+
+    // Escape de markdown y percent-encoding UTF-8 en una sola pasada
+    static void codificar(StringBuilder sb, String texto, Escape escape) {
+        if (texto == null) return;
+        int n = texto.length();
+        for (int i = 0; i < n; i++) {
+            char c = texto.charAt(i);
+            if (escape.aplica(c)) {
+                sb.append("%5C");
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '-' || c == '*' || c == '_') {
+                sb.append(c);
+            } else if (c == ' ') {
+                sb.append('+');
+            } else if (c < 0x80) {
+                byteCodificado(sb, c);
+            } else if (c < 0x800) {
+                byteCodificado(sb, 0xC0 | (c >> 6));
+                byteCodificado(sb, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, texto.charAt(++i));
+                byteCodificado(sb, 0xF0 | (cp >> 18));
+                byteCodificado(sb, 0x80 | ((cp >> 12) & 0x3F));
+                byteCodificado(sb, 0x80 | ((cp >> 6) & 0x3F));
+                byteCodificado(sb, 0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Surrogate suelto: URLEncoder lo reemplaza por '?'
+                byteCodificado(sb, '?');
+            } else {
+                byteCodificado(sb, 0xE0 | (c >> 12));
+                byteCodificado(sb, 0x80 | ((c >> 6) & 0x3F));
+                byteCodificado(sb, 0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static void byteCodificado(StringBuilder sb, int b) {
+        sb.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+}
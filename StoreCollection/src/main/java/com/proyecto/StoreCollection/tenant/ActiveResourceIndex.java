@@ -0,0 +1,67 @@
+package com.proyecto.StoreCollection.tenant;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.cache.TtlCache;
+import com.proyecto.StoreCollection.event.CatalogoModificadoEvent;
+import com.proyecto.StoreCollection.event.TiendaModificadaEvent;
+import com.proyecto.StoreCollection.repository.CategoriaRepository;
+import com.proyecto.StoreCollection.repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Índice por tienda de productos (id y slug) y categorías activos, para que
+ * ResourceActiveFilter valide sin ir a la BD. Se recarga (2 consultas livianas)
+ * la primera vez que se pide después de un cambio en el catálogo.
+ */
+@Component
+public class ActiveResourceIndex {
+
+    public record Recursos(Set<Integer> productoIds, Set<String> productoSlugs, Set<Integer> categoriaIds) {
+    }
+
+    private final ProductoRepository productoRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final TtlCache<Integer, Recursos> cache;
+
+    public ActiveResourceIndex(ProductoRepository productoRepository,
+                               CategoriaRepository categoriaRepository,
+                               CacheRegistry cacheRegistry,
+                               @Value("${app.cache.recursos-activos.max-size:1000}") int maxSize,
+                               @Value("${app.cache.recursos-activos.ttl-seconds:1800}") long ttlSeconds) {
+        this.productoRepository = productoRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.cache = cacheRegistry.crear("recursos-activos", maxSize, ttlSeconds * 1000);
+    }
+
+    public Recursos get(Integer tiendaId) {
+        return cache.get(tiendaId, this::cargar);
+    }
+
+    private Recursos cargar(Integer tiendaId) {
+        List<Object[]> productos = productoRepository.findIdsYSlugsActivosByTiendaId(tiendaId);
+        Set<Integer> ids = new HashSet<>(productos.size() * 2);
+        Set<String> slugs = new HashSet<>(productos.size() * 2);
+        for (Object[] row : productos) {
+            ids.add((Integer) row[0]);
+            slugs.add((String) row[1]);
+        }
+        Set<Integer> categorias = new HashSet<>(categoriaRepository.findIdsActivosByTiendaId(tiendaId));
+        return new Recursos(Set.copyOf(ids), Set.copyOf(slugs), Set.copyOf(categorias));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        if (event.tiendaId() != null) cache.evict(event.tiendaId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTiendaModificada(TiendaModificadaEvent event) {
+        if (event.tiendaId() != null) cache.evict(event.tiendaId());
+    }
+}
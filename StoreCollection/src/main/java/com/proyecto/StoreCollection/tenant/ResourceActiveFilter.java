@@ -1,9 +1,5 @@
 package com.proyecto.StoreCollection.tenant;
 
-import com.proyecto.StoreCollection.entity.Categoria;
-import com.proyecto.StoreCollection.entity.Producto;
-import com.proyecto.StoreCollection.repository.CategoriaRepository;
-import com.proyecto.StoreCollection.repository.ProductoRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,20 +10,16 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Component
 @Order(2)
 @RequiredArgsConstructor
 public class ResourceActiveFilter extends OncePerRequestFilter {
 
-    private final CategoriaRepository categoriaRepository;
-    private final ProductoRepository productoRepository;
+    private final ActiveResourceIndex activeResourceIndex;
 
-    private static final Pattern PRODUCTO_SLUG_PATTERN = Pattern.compile("^/api/public/tiendas/[^/]+/productos/([^/]+)");
-    private static final Pattern PRODUCTO_ID_PATTERN = Pattern.compile("^/api/public/tiendas/[^/]+/productos/(\\d+)");
-    private static final Pattern CATEGORIA_ID_PATTERN = Pattern.compile("^/api/public/tiendas/[^/]+/categorias/(\\d+)");
+    // /api/public/tiendas/{tiendaSlug}/{productos|categorias}/{valor}/...
+    private static final String PREFIJO_PUBLICO = "/api/public/tiendas/";
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
@@ -56,53 +48,60 @@ public class ResourceActiveFilter extends OncePerRequestFilter {
         String path = request.getRequestURI();
         Integer tenantId = TenantContext.getTenantId();
 
-        if (tenantId == null) {
-            filterChain.doFilter(request, response);
-            return;
-        }
-
-        if (path.matches("^/api/public/tiendas/[^/]+/productos$")) {
+        if (tenantId == null || !path.startsWith(PREFIJO_PUBLICO)) {
             filterChain.doFilter(request, response);
             return;
         }
 
         try {
-            Matcher prodSlugMatcher = PRODUCTO_SLUG_PATTERN.matcher(path);
-            if (prodSlugMatcher.find()) {
-                String productoSlug = prodSlugMatcher.group(1);
-                Producto producto = productoRepository.findBySlugAndTiendaId(productoSlug, tenantId).orElse(null);
-                if (producto == null || !producto.isActivo()) {
-                    sendError(response, "El producto no está disponible en este momento.");
-                    return;
-                }
+            // Segmentos después del slug de la tienda: tipo de recurso y su valor
+            int finSlug = path.indexOf('/', PREFIJO_PUBLICO.length());
+            int finTipo = finSlug < 0 ? -1 : path.indexOf('/', finSlug + 1);
+            if (finTipo < 0) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            String tipo = path.substring(finSlug + 1, finTipo);
+            int finValor = path.indexOf('/', finTipo + 1);
+            String valor = finValor < 0 ? path.substring(finTipo + 1) : path.substring(finTipo + 1, finValor);
+
+            if (valor.isEmpty()) {
+                filterChain.doFilter(request, response);
+                return;
             }
 
-            Matcher prodIdMatcher = PRODUCTO_ID_PATTERN.matcher(path);
-            if (prodIdMatcher.find()) {
-                Integer productoId = Integer.parseInt(prodIdMatcher.group(1));
-                Producto producto = productoRepository.findByIdAndTiendaId(productoId, tenantId).orElse(null);
-                if (producto == null || !producto.isActivo()) {
+            if ("productos".equals(tipo)) {
+                ActiveResourceIndex.Recursos activos = activeResourceIndex.get(tenantId);
+                // Un valor numérico puede ser el slug o el id del producto
+                boolean activo = activos.productoSlugs().contains(valor)
+                        || (esNumero(valor) && activos.productoIds().contains(Integer.parseInt(valor)));
+                if (!activo) {
                     sendError(response, "El producto no está disponible en este momento.");
                     return;
                 }
-            }
-
-            Matcher catIdMatcher = CATEGORIA_ID_PATTERN.matcher(path);
-            if (catIdMatcher.find()) {
-                Integer categoriaId = Integer.parseInt(catIdMatcher.group(1));
-                Categoria categoria = categoriaRepository.findByIdAndTiendaId(categoriaId, tenantId).orElse(null);
-                if (categoria == null || !categoria.isActivo()) {
+            } else if ("categorias".equals(tipo) && esNumero(valor)) {
+                if (!activeResourceIndex.get(tenantId).categoriaIds().contains(Integer.parseInt(valor))) {
                     sendError(response, "La categoría no está disponible en este momento.");
                     return;
                 }
             }
 
-            filterChain.doFilter(request, response);
-
         } catch (Exception e) {
             logger.error("Error en ResourceActiveFilter", e);
             sendError(response, "Error al validar el recurso solicitado.");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // Hasta 9 dígitos: siempre entra en un Integer
+    private static boolean esNumero(String valor) {
+        if (valor.length() > 9) return false;
+        for (int i = 0; i < valor.length(); i++) {
+            if (!Character.isDigit(valor.charAt(i))) return false;
         }
+        return true;
     }
 
     private void sendError(HttpServletResponse response, String message) throws IOException {
@@ -1,7 +1,7 @@
 package com.proyecto.StoreCollection.tenant;
 
-import com.proyecto.StoreCollection.entity.Tienda;
-import com.proyecto.StoreCollection.repository.TiendaRepository;
+import com.proyecto.StoreCollection.config.PrincipalCache;
+import com.proyecto.StoreCollection.config.PrincipalInfo;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,7 +22,8 @@ import java.util.regex.Pattern;
 @RequiredArgsConstructor
 public class TenantFilter extends OncePerRequestFilter {
 
-    private final TiendaRepository tiendaRepository;
+    private final TenantSlugCache tenantSlugCache;
+    private final PrincipalCache principalCache;
 
     private static final Pattern TENANT_SLUG_PATTERN = Pattern.compile("^/api/(public|owner)/tiendas/([^/]+)");
 
@@ -58,27 +59,25 @@ public class TenantFilter extends OncePerRequestFilter {
         boolean isAuthenticated = auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal());
 
         try {
-            Tienda tienda = null;
-
             if (hasTenantSlug) {
                 String slug = matcher.group(2);
-                tienda = tiendaRepository.findBySlug(slug).orElse(null);
+                TenantInfo info = tenantSlugCache.resolver(slug).orElse(null);
 
-                if (tienda == null && path.startsWith("/api/public/")) {
+                if (info == null && path.startsWith("/api/public/")) {
                     sendNotFound(response, "Tienda no encontrada");
                     return;
                 }
 
-                if (tienda != null) {
-                    TenantContext.setTenantId(tienda.getId());
+                if (info != null) {
+                    TenantContext.setTenantId(info.tiendaId());
                 }
 
             } else if (isAuthenticated && path.startsWith("/api/owner/")) {
                 String email = auth.getName();
-                tienda = tiendaRepository.findFirstByUserEmail(email).orElse(null);
+                PrincipalInfo principal = principalCache.get(email).orElse(null);
 
-                if (tienda != null && tienda.getActivo()) {
-                    TenantContext.setTenantId(tienda.getId());
+                if (principal != null && principal.tieneTiendaActiva()) {
+                    TenantContext.setTenantId(principal.tiendaId());
                 }
             }
 
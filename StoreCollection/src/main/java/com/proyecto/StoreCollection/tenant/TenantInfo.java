@@ -0,0 +1,12 @@
+package com.proyecto.StoreCollection.tenant;
+
+/**
+ * Datos mínimos de una tienda para resolver el tenant en cada request
+ * (sin cargar la entidad completa).
+ */
+public record TenantInfo(Integer tiendaId, Boolean activo, Integer planId) {
+
+    public boolean isActiva() {
+        return Boolean.TRUE.equals(activo);
+    }
+}
@@ -0,0 +1,47 @@
+package com.proyecto.StoreCollection.tenant;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.cache.TtlCache;
+import com.proyecto.StoreCollection.event.TiendaModificadaEvent;
+import com.proyecto.StoreCollection.repository.TiendaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Caché slug → (tiendaId, activo, planId) usada por TenantFilter.
+ * Las entradas se invalidan al modificar la tienda; el TTL solo cubre
+ * cambios hechos fuera de la aplicación (ej. directo en la BD).
+ */
+@Component
+public class TenantSlugCache {
+
+    private final TiendaRepository tiendaRepository;
+    private final TtlCache<String, TenantInfo> cache;
+
+    public TenantSlugCache(TiendaRepository tiendaRepository,
+                           CacheRegistry cacheRegistry,
+                           @Value("${app.cache.tenant-slug.max-size:2000}") int maxSize,
+                           @Value("${app.cache.tenant-slug.ttl-seconds:600}") long ttlSeconds) {
+        this.tiendaRepository = tiendaRepository;
+        this.cache = cacheRegistry.crear("tenant-slug", maxSize, ttlSeconds * 1000);
+    }
+
+    public Optional<TenantInfo> resolver(String slug) {
+        if (slug == null || slug.isBlank()) return Optional.empty();
+        return Optional.ofNullable(cache.get(slug, s -> tiendaRepository.findTenantInfoBySlug(s).orElse(null)));
+    }
+
+    public void evictTienda(Integer tiendaId) {
+        if (tiendaId == null) return;
+        // Se busca por id y no por slug: así también cae el slug anterior si fue renombrada
+        cache.evictIf(info -> tiendaId.equals(info.tiendaId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTiendaModificada(TiendaModificadaEvent event) {
+        evictTienda(event.tiendaId());
+    }
+}
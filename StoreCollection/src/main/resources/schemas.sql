@@ -109,7 +109,7 @@
         CONSTRAINT fk_variante_tienda
             FOREIGN KEY (tienda_id) REFERENCES tienda(id) ON DELETE CASCADE,
         INDEX idx_producto (producto_id),
-        INDEX idx_tienda (tienda_id),
+        INDEX idx_tienda_producto (tienda_id, producto_id),
         UNIQUE INDEX uq_sku (sku),
         INDEX idx_activo (activo),
         INDEX idx_precio_stock (precio, stock)
@@ -129,7 +129,8 @@
         tienda_id INT NOT NULL,
         FOREIGN KEY (atributo_id) REFERENCES atributo(id) ON DELETE CASCADE,
         FOREIGN KEY (tienda_id) REFERENCES tienda(id) ON DELETE CASCADE,
-        UNIQUE KEY uq_atributo_valor (atributo_id, valor)
+        UNIQUE KEY uq_atributo_valor (atributo_id, valor),
+        INDEX idx_tienda_atributo (tienda_id, atributo_id)
     );
 
     CREATE TABLE variante_atributo (
@@ -151,6 +152,14 @@
          INDEX idx_session_tienda (session_id, tienda_id);
     );
 
+    -- Ids de carrito por bloques para MemoriaCarritoStore (varias instancias sin ids repetidos)
+    CREATE TABLE carrito_secuencia (
+        id INT PRIMARY KEY,
+        ultimo INT NOT NULL                   -- último id entregado a alguna instancia
+    ) ENGINE=InnoDB;
+
+    INSERT INTO carrito_secuencia (id, ultimo) SELECT 1, COALESCE(MAX(id), 0) FROM carrito;
+
     -- NUEVAS TABLAS PARA BOLETAS (COMPRAS)
 
     CREATE TABLE boleta (
@@ -199,4 +208,27 @@
         subtotal DECIMAL(10,2) NOT NULL,
         FOREIGN KEY (boleta_id) REFERENCES boleta(id) ON DELETE CASCADE,
         FOREIGN KEY (variante_id) REFERENCES producto_variante(id) ON DELETE RESTRICT
-    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
\ No newline at end of file
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+    -- Ventas acumuladas por tienda / periodo / estado (las mantiene VentaRollupService)
+    CREATE TABLE venta_rollup (
+        tienda_id INT NOT NULL,
+        periodo ENUM('DIA', 'SEMANA', 'MES') NOT NULL,
+        inicio DATE NOT NULL,                      -- Primer día del periodo (semanas desde el lunes)
+        estado ENUM('PENDIENTE', 'ATENDIDA', 'CANCELADA') NOT NULL,
+        boletas BIGINT NOT NULL DEFAULT 0,
+        unidades BIGINT NOT NULL DEFAULT 0,
+        total DECIMAL(14,2) NOT NULL DEFAULT 0,
+        PRIMARY KEY (tienda_id, periodo, inicio, estado),
+        KEY idx_venta_rollup_periodo (periodo, estado, inicio),
+        FOREIGN KEY (tienda_id) REFERENCES tienda(id) ON DELETE CASCADE
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+    -- Revocaciones de tokens JWT (TokenRevocationRegistry); sin FK para conservar las de usuarios eliminados
+    CREATE TABLE token_revocacion (
+        usuario_id INT PRIMARY KEY,
+        bloqueado BOOLEAN NOT NULL DEFAULT FALSE,
+        validos_desde DATETIME(6) NOT NULL,        -- UTC
+        actualizado_en DATETIME(6) NOT NULL,       -- UTC
+        KEY idx_token_revocacion_actualizado (actualizado_en)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,132 @@
+package com.proyecto.StoreCollection.benchmark;
+
+import com.itextpdf.html2pdf.HtmlConverter;
+import com.proyecto.StoreCollection.dto.response.BoletaDetalleResponse;
+import com.proyecto.StoreCollection.dto.response.BoletaResponse;
+import com.proyecto.StoreCollection.service.PdfService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempo de PdfService.generarFacturaPdf sobre una boleta fija, contra la conversión
+ * sin reutilizar nada (fuentes y propiedades nuevas en cada PDF).
+ * <p>
+ * No corre con los tests. Para ejecutarlo:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.proyecto.StoreCollection.benchmark.PdfServiceBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfServiceBenchmark {
+
+    @Param({"1", "20"})
+    private int lineas;
+
+    private SpringTemplateEngine templateEngine;
+    private PdfService pdfService;
+    private BoletaResponse boleta;
+
+    @Setup
+    public void preparar() {
+        // Misma resolución que la autoconfiguración de Thymeleaf: classpath:/templates/*.html
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setCharacterEncoding("UTF-8");
+
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        pdfService = new PdfService(templateEngine);
+        pdfService.init();
+
+        boleta = boleta(lineas);
+    }
+
+    @Benchmark
+    public byte[] generarFacturaPdf() throws Exception {
+        return pdfService.generarFacturaPdf(boleta);
+    }
+
+    // Lo que hacía PdfService antes: HtmlConverter arma sus fuentes en cada llamada
+    @Benchmark
+    public byte[] sinReutilizar() {
+        Context context = new Context();
+        context.setVariable("boleta", boleta);
+        String html = templateEngine.process("pdf/factura", context);
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        HtmlConverter.convertToPdf(html, salida);
+        return salida.toByteArray();
+    }
+
+    private static BoletaResponse boleta(int lineas) {
+        List<BoletaDetalleResponse> detalles = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 1; i <= lineas; i++) {
+            BoletaDetalleResponse detalle = new BoletaDetalleResponse();
+            detalle.setId(i);
+            detalle.setVarianteId(i);
+            detalle.setNombreProducto("Polo algodón " + i);
+            detalle.setSku("POLO-" + i);
+            detalle.setCantidad(2);
+            detalle.setPrecioUnitario(new BigDecimal("39.90"));
+            detalle.setSubtotal(new BigDecimal("79.80"));
+            detalles.add(detalle);
+            total = total.add(detalle.getSubtotal());
+        }
+
+        BoletaResponse boleta = new BoletaResponse();
+        boleta.setId(1024);
+        boleta.setTiendaId(1);
+        boleta.setTiendaNombre("Tienda de prueba");
+        boleta.setFecha(LocalDateTime.of(2025, 1, 15, 10, 30));
+        boleta.setEstado("ATENDIDA");
+        boleta.setCompradorNombre("Ana Pérez");
+        boleta.setCompradorEmail("ana@test.com");
+        boleta.setCompradorNumero("987654321");
+        boleta.setDireccionEnvio("Av. Arequipa 123");
+        boleta.setDistrito("Miraflores");
+        boleta.setProvincia("Lima");
+        boleta.setDepartamento("Lima");
+        boleta.setTipoEntrega("DOMICILIO");
+        boleta.setTotal(total);
+        boleta.setDetalles(detalles);
+        return boleta;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PdfServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,59 @@
+package com.proyecto.StoreCollection.carrito;
+
+import com.proyecto.StoreCollection.entity.Carrito;
+import com.proyecto.StoreCollection.entity.ProductoVariante;
+import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.repository.CarritoRepository;
+import com.proyecto.StoreCollection.support.JpaSliceTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dos instancias de MemoriaCarritoStore sobre la misma base toman bloques distintos de
+ * carrito_secuencia: nunca asignan el mismo id ni uno que ya esté en la tabla.
+ */
+class MemoriaCarritoStoreIdsTest extends JpaSliceTest {
+
+    private static final int BLOQUE = 3;
+
+    @Autowired
+    private CarritoRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void dosInstanciasNoRepitenIds() {
+        Tienda tienda = tienda();
+        ProductoVariante variante = variante(producto(categoria(tienda), "Polo"), "IDS-POLO", 5);
+        // Fila escrita antes (ej. por JpaCarritoStore), ya confirmada
+        Carrito existente = lineaCarrito("sesion-vieja", variante, 1);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        MemoriaCarritoStore nodoA = nodo();
+        MemoriaCarritoStore nodoB = nodo();
+
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(nodoA.agregar("sesion-a", tienda.getId(), variante.getId(), 1).id());
+            ids.add(nodoB.agregar("sesion-b", tienda.getId(), variante.getId(), 1).id());
+        }
+
+        assertEquals(10, ids.size(), "sin ids repetidos entre instancias");
+        assertTrue(ids.stream().allMatch(id -> id > existente.getId()), "después de las filas existentes");
+    }
+
+    private MemoriaCarritoStore nodo() {
+        return new MemoriaCarritoStore(repository, transactionManager,
+                MemoriaCarritoStore.Durabilidad.NINGUNA, 500, BLOQUE, 120);
+    }
+}
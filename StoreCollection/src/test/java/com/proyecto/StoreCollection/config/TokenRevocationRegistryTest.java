@@ -0,0 +1,85 @@
+package com.proyecto.StoreCollection.config;
+
+import com.proyecto.StoreCollection.event.UsuarioModificadoEvent;
+import com.proyecto.StoreCollection.event.UsuarioModificadoEvent.Revocacion;
+import com.proyecto.StoreCollection.repository.TokenRevocacionRepository;
+import com.proyecto.StoreCollection.repository.UsuarioRepository;
+import com.proyecto.StoreCollection.support.JpaSliceTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las revocaciones quedan en token_revocacion: un nodo que arranca (o que no hizo el cambio)
+ * rechaza los tokens viejos igual que el nodo donde se revocaron.
+ */
+@Import(TokenRevocationRegistry.class)
+class TokenRevocationRegistryTest extends JpaSliceTest {
+
+    private static final long HORA = 3_600_000L;
+
+    @Autowired
+    private TokenRevocationRegistry registry;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TokenRevocacionRepository revocacionRepository;
+
+    @Test
+    void cambioDeRolSobreviveAlReinicio() {
+        registry.guardar(new UsuarioModificadoEvent(101, Revocacion.EMITIDOS_HASTA_AHORA));
+
+        TokenRevocationRegistry reiniciado = otroNodo();
+        reiniciado.cargar();
+
+        assertTrue(reiniciado.isRevocado(101, hace(HORA)), "token emitido antes del cambio");
+        assertFalse(reiniciado.isRevocado(101, new Date(System.currentTimeMillis() + 2000)), "token nuevo");
+        assertFalse(reiniciado.isRevocado(102, hace(HORA)), "otro usuario");
+    }
+
+    @Test
+    void usuarioEliminadoSigueBloqueadoTrasElReinicio() {
+        registry.guardar(new UsuarioModificadoEvent(201, Revocacion.BLOQUEAR));
+
+        TokenRevocationRegistry reiniciado = otroNodo();
+        reiniciado.cargar();
+
+        assertTrue(reiniciado.isRevocado(201, new Date(System.currentTimeMillis() + 2000)));
+    }
+
+    @Test
+    void otroNodoLaVeAlRefrescar() {
+        TokenRevocationRegistry nodoB = otroNodo();
+        nodoB.cargar();
+
+        registry.guardar(new UsuarioModificadoEvent(301, Revocacion.EMITIDOS_HASTA_AHORA));
+        assertFalse(nodoB.isRevocado(301, hace(HORA)));
+
+        nodoB.refrescar();
+        assertTrue(nodoB.isRevocado(301, hace(HORA)));
+    }
+
+    @Test
+    void sinRevocacionNoSeGuardaNada() {
+        registry.guardar(new UsuarioModificadoEvent(401));
+        assertFalse(revocacionRepository.existsById(401));
+    }
+
+    private TokenRevocationRegistry otroNodo() {
+        TokenRevocationRegistry nodo = new TokenRevocationRegistry(usuarioRepository, revocacionRepository);
+        ReflectionTestUtils.setField(nodo, "expiracionMillis", 24 * HORA);
+        return nodo;
+    }
+
+    private static Date hace(long millis) {
+        return new Date(System.currentTimeMillis() - millis);
+    }
+}
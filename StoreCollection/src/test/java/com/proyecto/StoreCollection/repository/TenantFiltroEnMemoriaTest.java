@@ -0,0 +1,146 @@
+package com.proyecto.StoreCollection.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * findAllByTenant() / findAllByTiendaId(...) traen todas las filas de la tienda: filtrarlas
+ * después en un stream tiene que ser una consulta (ver TenantBaseRepository.withTenant).
+ */
+class TenantFiltroEnMemoriaTest {
+
+    private static final Path FUENTES = Path.of("src/main/java");
+
+    // Llamada a un buscador de toda la tienda (con o sin argumentos)
+    private static final Pattern LLAMADA = Pattern.compile("\\.(findAllByTenant|findAllByTiendaId)\\s*\\(");
+
+    // Resultado guardado en una variable local: "lista = repo.findAllByTenant("
+    private static final Pattern ASIGNACION = Pattern.compile(
+            "(\\w+)\\s*=\\s*[\\w.]*\\.(findAllByTenant|findAllByTiendaId)\\s*\\(");
+
+    @Test
+    void ningunFiltroSobreBuscadoresDeTodaLaTienda() throws IOException {
+        List<String> encontrados = new ArrayList<>();
+        try (Stream<Path> archivos = Files.walk(FUENTES)) {
+            for (Path archivo : archivos.filter(p -> p.toString().endsWith(".java")).toList()) {
+                String codigo = Files.readString(archivo, StandardCharsets.UTF_8);
+                for (int linea : filtrosEnMemoria(codigo)) {
+                    encontrados.add(FUENTES.relativize(archivo) + ":" + linea);
+                }
+            }
+        }
+        assertTrue(encontrados.isEmpty(),
+                "Filtros en memoria sobre findAllByTenant()/findAllByTiendaId(), usar una consulta por tiendaId:\n"
+                        + String.join("\n", encontrados));
+    }
+
+    // ======================== EL DETECTOR ========================
+
+    @Test
+    void detectaElFiltroEncadenado() {
+        assertEquals(List.of(1), filtrosEnMemoria(
+                "return repo.findAllByTenant()\n.stream().filter(v -> v.getId() == id).toList();"));
+        assertEquals(List.of(1), filtrosEnMemoria(
+                "return repo.findAllByTiendaId(tiendaId).stream()\n.filter(v -> v.isActivo()).toList();"));
+    }
+
+    @Test
+    void detectaElFiltroSobreUnaVariableLocal() {
+        String codigo = """
+                void metodo() {
+                    List<ProductoVariante> todas = repo.findAllByTiendaId(tiendaId);
+                    log.debug("{}", todas.size());
+                    return todas.stream()
+                            .filter(v -> v.getProducto().getId().equals(productoId))
+                            .toList();
+                }
+                """;
+        assertEquals(List.of(4), filtrosEnMemoria(codigo));
+    }
+
+    @Test
+    void ignoraLosUsosSinFiltroYLasVariablesDeOtrosMetodos() {
+        String codigo = """
+                void uno() {
+                    List<Categoria> todas = repo.findAllByTenant();
+                    return todas.stream().map(this::toResponse).toList();
+                }
+                void dos() {
+                    return todas.stream().filter(c -> c.isActivo()).toList();
+                }
+                """;
+        assertTrue(filtrosEnMemoria(codigo).isEmpty());
+    }
+
+    // ======================== BÚSQUEDA ========================
+
+    /** Líneas donde empieza un stream().filter(...) sobre el resultado de un buscador de toda la tienda. */
+    static List<Integer> filtrosEnMemoria(String codigo) {
+        List<Integer> lineas = new ArrayList<>();
+
+        Matcher llamada = LLAMADA.matcher(codigo);
+        while (llamada.find()) {
+            int cierre = cierreDeParentesis(codigo, llamada.end() - 1);
+            if (filtraUnStream(codigo, cierre + 1)) {
+                lineas.add(linea(codigo, llamada.start()));
+            }
+        }
+
+        // La variable vive hasta que se cierra el bloque donde se declaró
+        Matcher asignacion = ASIGNACION.matcher(codigo);
+        while (asignacion.find()) {
+            int finBloque = finDeBloque(codigo, asignacion.end());
+            Matcher uso = Pattern.compile("\\b" + Pattern.quote(asignacion.group(1)) + "\\b")
+                    .matcher(codigo).region(asignacion.end(), finBloque);
+            while (uso.find()) {
+                if (filtraUnStream(codigo, uso.end())) {
+                    lineas.add(linea(codigo, uso.start()));
+                }
+            }
+        }
+        return lineas.stream().distinct().sorted().toList();
+    }
+
+    // Desde 'desde' hasta el ';': ¿empieza con .stream() y contiene .filter(?
+    private static boolean filtraUnStream(String codigo, int desde) {
+        int fin = codigo.indexOf(';', desde);
+        String sentencia = codigo.substring(desde, fin < 0 ? codigo.length() : fin).replaceAll("\\s+", "");
+        return sentencia.startsWith(".stream()") && sentencia.contains(".filter(");
+    }
+
+    private static int cierreDeParentesis(String codigo, int abre) {
+        int nivel = 0;
+        for (int i = abre; i < codigo.length(); i++) {
+            char c = codigo.charAt(i);
+            if (c == '(') nivel++;
+            if (c == ')' && --nivel == 0) return i;
+        }
+        return codigo.length() - 1;
+    }
+
+    private static int finDeBloque(String codigo, int desde) {
+        int nivel = 0;
+        for (int i = desde; i < codigo.length(); i++) {
+            char c = codigo.charAt(i);
+            if (c == '{') nivel++;
+            if (c == '}' && --nivel < 0) return i;
+        }
+        return codigo.length();
+    }
+
+    private static int linea(String codigo, int posicion) {
+        return (int) codigo.substring(0, posicion).chars().filter(c -> c == '\n').count() + 1;
+    }
+}
@@ -0,0 +1,120 @@
+package com.proyecto.StoreCollection.repository;
+
+import com.proyecto.StoreCollection.entity.Atributo;
+import com.proyecto.StoreCollection.entity.AtributoValor;
+import com.proyecto.StoreCollection.entity.Categoria;
+import com.proyecto.StoreCollection.entity.Producto;
+import com.proyecto.StoreCollection.entity.ProductoVariante;
+import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.support.JpaSliceTest;
+import com.proyecto.StoreCollection.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Los métodos *Safe filtran en la base de datos por tienda y por producto/atributo:
+ * devuelven solo las filas pedidas del tenant actual.
+ */
+class TenantSafeRepositoryTest extends JpaSliceTest {
+
+    @Autowired
+    private ProductoVarianteRepository varianteRepository;
+
+    @Autowired
+    private AtributoValorRepository valorRepository;
+
+    private Tienda tienda;
+    private Tienda otraTienda;
+    private Producto polo;
+    private Producto gorra;
+    private Producto poloDeOtraTienda;
+    private Atributo color;
+    private Atributo colorDeOtraTienda;
+
+    @BeforeEach
+    void datos() {
+        tienda = tienda();
+        Categoria categoria = categoria(tienda);
+        color = atributo(tienda, "Color");
+        Atributo talla = atributo(tienda, "Talla");
+        AtributoValor rojo = atributoValor(color, "Rojo");
+        atributoValor(color, "Azul");
+        AtributoValor m = atributoValor(talla, "M");
+
+        polo = producto(categoria, "Polo");
+        variante(polo, "POLO-ROJO-M", 3, rojo, m);
+        variante(polo, "POLO-BASE", 1);
+        gorra = producto(categoria, "Gorra");
+        variante(gorra, "GORRA-1", 5, rojo);
+
+        otraTienda = tienda();
+        colorDeOtraTienda = atributo(otraTienda, "Color");
+        AtributoValor negro = atributoValor(colorDeOtraTienda, "Negro");
+        poloDeOtraTienda = producto(categoria(otraTienda), "Polo");
+        variante(poloDeOtraTienda, "OTRA-POLO", 7, negro);
+
+        em.flush();
+        em.clear();
+    }
+
+    @AfterEach
+    void limpiarTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void findByProductoIdSafeDevuelveSoloLasVariantesDelProductoEnElTenant() {
+        TenantContext.setTenantId(tienda.getId());
+
+        List<ProductoVariante> variantes = varianteRepository.findByProductoIdSafe(polo.getId());
+
+        assertEquals(List.of("POLO-ROJO-M", "POLO-BASE"), variantes.stream().map(ProductoVariante::getSku).toList());
+        assertTrue(variantes.stream().allMatch(v ->
+                v.getTienda().getId().equals(tienda.getId()) && v.getProducto().getId().equals(polo.getId())));
+        assertEquals(2, variantes.get(0).getAtributos().size(), "sin duplicados por el JOIN FETCH");
+
+        assertEquals(1, varianteRepository.findByProductoIdSafe(gorra.getId()).size());
+    }
+
+    @Test
+    void findByProductoIdSafeNoDevuelveProductosDeOtroTenant() {
+        TenantContext.setTenantId(tienda.getId());
+        assertTrue(varianteRepository.findByProductoIdSafe(poloDeOtraTienda.getId()).isEmpty());
+
+        TenantContext.setTenantId(otraTienda.getId());
+        assertTrue(varianteRepository.findByProductoIdSafe(polo.getId()).isEmpty());
+        assertEquals(List.of("OTRA-POLO"), varianteRepository.findByProductoIdSafe(poloDeOtraTienda.getId())
+                .stream().map(ProductoVariante::getSku).toList());
+    }
+
+    @Test
+    void findByAtributoIdSafeDevuelveSoloLosValoresDelAtributoEnElTenant() {
+        TenantContext.setTenantId(tienda.getId());
+
+        List<AtributoValor> valores = valorRepository.findByAtributoIdSafe(color.getId());
+
+        assertEquals(List.of("Azul", "Rojo"), valores.stream().map(AtributoValor::getValor).sorted().toList());
+        assertTrue(valores.stream().allMatch(v ->
+                v.getTienda().getId().equals(tienda.getId()) && v.getAtributo().getId().equals(color.getId())));
+        assertTrue(valorRepository.findByAtributoIdSafe(colorDeOtraTienda.getId()).isEmpty());
+    }
+
+    // El proxy del repositorio traduce la IllegalStateException de withTenant
+    @Test
+    void sinTenantNoSeConsulta() {
+        assertInstanceOf(IllegalStateException.class, assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> varianteRepository.findByProductoIdSafe(polo.getId())).getCause());
+        assertInstanceOf(IllegalStateException.class, assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> valorRepository.findByAtributoIdSafe(color.getId())).getCause());
+    }
+}
@@ -0,0 +1,100 @@
+package com.proyecto.StoreCollection.search;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reglas del buscador del panel sobre un catálogo fijo (el repositorio es un mock):
+ * tildes, SKU sin separadores, errores de tipeo según el largo y todas las palabras.
+ */
+class ProductoSearchIndexTest {
+
+    private static final Integer TIENDA = 1;
+
+    private static final int ZAPATILLA = 1;
+    private static final int CAMION = 2;
+    private static final int PANTALON = 3;
+    private static final int MOCHILA = 4;
+    private static final int GORRO = 5;
+
+    private ProductoSearchIndex indice;
+
+    @BeforeEach
+    void setUp() {
+        ProductoRepository repository = mock(ProductoRepository.class);
+        // Filas [productoId, nombre, slug, sku, valorAtributo]
+        when(repository.findTextoBusquedaByTiendaId(TIENDA)).thenReturn(List.of(
+                fila(ZAPATILLA, "Zapatilla Running", "zapatilla-running", "ZAP-RUN-42", "Azul"),
+                fila(CAMION, "Camión de juguete", "camion-de-juguete", "CAM-JUG-01", "Rojo"),
+                fila(PANTALON, "Pantalón Básico", "pantalon-basico", "PAN-BAS-M", "Negro"),
+                fila(MOCHILA, "Mochila", "mochila", "M1", null),
+                fila(GORRO, "Gorro de lana", "gorro-de-lana", "G1", null)));
+
+        indice = new ProductoSearchIndex(repository, new CacheRegistry(), 10, 3600);
+    }
+
+    // ======================== NORMALIZACIÓN ========================
+
+    @Test
+    void ignoraTildesYMayusculasEnAmbosLados() {
+        assertEquals(List.of(CAMION), buscar("camion"));
+        assertEquals(List.of(CAMION), buscar("CAMIÓN"));
+        assertEquals(List.of(PANTALON), buscar("pantalon basico"));
+        assertEquals(List.of(PANTALON), buscar("Básico"));
+    }
+
+    @Test
+    void encuentraElSkuSinSeparadores() {
+        assertEquals(List.of(ZAPATILLA), buscar("zaprun42"));
+        assertEquals(List.of(ZAPATILLA), buscar("zaprun"));
+        assertEquals(List.of(CAMION), buscar("cam-jug"));
+    }
+
+    // ======================== ERRORES DE TIPEO ========================
+
+    @Test
+    void desdeCuatroLetrasToleraUnError() {
+        assertEquals(List.of(GORRO), buscar("lanx"));
+        assertEquals(List.of(MOCHILA), buscar("mochilq"));
+        assertEquals(List.of(MOCHILA), buscar("mochial"), "una transposición es un solo error");
+    }
+
+    @Test
+    void conMenosDeOchoLetrasNoToleraDosErrores() {
+        assertTrue(buscar("mxchilq").isEmpty());
+    }
+
+    @Test
+    void desdeOchoLetrasToleraDosErrores() {
+        assertEquals(List.of(PANTALON), buscar("pamtalin"));
+        assertTrue(buscar("pxmtalin").isEmpty(), "tres errores");
+    }
+
+    // ======================== VARIAS PALABRAS ========================
+
+    @Test
+    void todasLasPalabrasDebenCoincidir() {
+        assertEquals(List.of(ZAPATILLA), buscar("zapatilla azul"));
+        assertEquals(List.of(CAMION), buscar("rojo camion"));
+        assertTrue(buscar("zapatilla rojo").isEmpty());
+        assertTrue(buscar("gorro lanx mochila").isEmpty());
+    }
+
+    private List<Integer> buscar(String texto) {
+        return indice.buscar(TIENDA, texto, PageRequest.of(0, 20)).getContent();
+    }
+
+    private static Object[] fila(Integer id, String nombre, String slug, String sku, String valor) {
+        return new Object[]{id, nombre, slug, sku, valor};
+    }
+}
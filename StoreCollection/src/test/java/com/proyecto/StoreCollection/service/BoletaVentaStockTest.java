@@ -0,0 +1,151 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.dto.request.BoletaAdminRequest;
+import com.proyecto.StoreCollection.dto.response.BoletaResponse;
+import com.proyecto.StoreCollection.entity.ProductoVariante;
+import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.support.JpaSliceTest;
+import com.proyecto.StoreCollection.tenant.TenantContext;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ventas del panel contra las reservas de los carritos: la venta suelta las reservas que cubre
+ * (el stock ya salió de la BD) y no puede tomar lo que reservaron otros carritos. Además, el
+ * stock que se lee en la misma transacción después de vender o devolver ya es el nuevo.
+ */
+@Import({BoletaServiceImpl.class, ReservaStockLedger.class, WhatsappMensajeTemplate.class, CacheRegistry.class})
+class BoletaVentaStockTest extends JpaSliceTest {
+
+    @Autowired
+    private BoletaService boletaService;
+
+    @Autowired
+    private ReservaStockLedger ledger;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private CarritoService carritoService;
+
+    private Tienda tienda;
+    private ProductoVariante variante;
+
+    @BeforeEach
+    void datos() {
+        tienda = tienda();
+        variante = variante(producto(categoria(tienda), "Polo"), "POLO-" + System.nanoTime(), 5);
+        em.flush();
+        TenantContext.setTenantId(tienda.getId());
+    }
+
+    @AfterEach
+    void limpiarTenant() {
+        TenantContext.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void ventaConSesionSueltaLasReservasDeEseCarrito() {
+        ledger.reservarCheckout("pedido", List.of(new ReservaStockLedger.Linea(1, variante.getId(), 2, 5)));
+        ledger.reservarTodas("otro", List.of(new ReservaStockLedger.Linea(2, variante.getId(), 1, 5)));
+
+        boletaService.crearBoletaAdmin(venta("pedido", 2));
+        confirmar();
+
+        assertEquals(1, ledger.reservado(variante.getId()), "solo queda el otro carrito");
+        assertEquals(3, stockEnBd());
+        assertEquals(2, ledger.disponible(variante.getId(), stockEnBd()), "sin descontar dos veces");
+    }
+
+    @Test
+    void ventaSinSesionSueltaLasReservasDeCheckoutHastaLaCantidadVendida() {
+        ledger.reservarCheckout("pedido-a", List.of(new ReservaStockLedger.Linea(3, variante.getId(), 1, 5)));
+        ledger.reservarCheckout("pedido-b", List.of(new ReservaStockLedger.Linea(4, variante.getId(), 2, 5)));
+        ledger.reservarTodas("navegando", List.of(new ReservaStockLedger.Linea(5, variante.getId(), 1, 5)));
+
+        boletaService.crearBoletaAdmin(venta(null, 2));
+        confirmar();
+
+        // pedido-a (1) completo + 1 de pedido-b; el carrito sin pedido no se toca
+        assertEquals(2, ledger.reservado(variante.getId()));
+        assertEquals(3, stockEnBd());
+    }
+
+    @Test
+    void ventaNoTomaElStockReservadoPorOtrosCarritos() {
+        ledger.reservarTodas("navegando", List.of(new ReservaStockLedger.Linea(6, variante.getId(), 4, 5)));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> boletaService.crearBoletaAdmin(venta(null, 2)));
+        assertTrue(e.getMessage().contains("disponible: 1"), e.getMessage());
+
+        // La sesión dueña de la reserva sí puede venderla
+        ledger.liberar(variante.getId(), 6);
+        ledger.reservarTodas("pedido", List.of(new ReservaStockLedger.Linea(7, variante.getId(), 5, 5)));
+        boletaService.crearBoletaAdmin(venta("pedido", 5));
+    }
+
+    @Test
+    void elStockLeidoEnLaMismaTransaccionYaEstaActualizado() {
+        // Dueño de la tienda (sin ROLE_ADMIN): los permisos salen del tenant
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "owner", null, List.of(new SimpleGrantedAuthority("ROLE_OWNER"))));
+
+        BoletaResponse boleta = boletaService.crearBoletaAdmin(venta(null, 2));
+        // La misma instancia que cargó la boleta, sin commit ni em.clear() de por medio
+        assertEquals(3, variante.getStock(), "descontado");
+
+        boletaService.actualizarEstado(boleta.getId(), "CANCELADA");
+        assertEquals(5, variante.getStock(), "devuelto");
+
+        boletaService.actualizarEstado(boleta.getId(), "ATENDIDA");
+        assertEquals(3, variante.getStock(), "descontado de nuevo");
+    }
+
+    private BoletaAdminRequest venta(String sessionId, int cantidad) {
+        BoletaAdminRequest.ItemRequest item = new BoletaAdminRequest.ItemRequest();
+        item.setVarianteId(variante.getId());
+        item.setCantidad(cantidad);
+
+        BoletaAdminRequest request = new BoletaAdminRequest();
+        request.setTiendaId(tienda.getId());
+        request.setSessionId(sessionId);
+        request.setItems(List.of(item));
+        return request;
+    }
+
+    // Los listeners @TransactionalEventListener corren tras el commit
+    private void confirmar() {
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+    }
+
+    // Fuera de la transacción del test: lo que quedó confirmado en la BD
+    private int stockEnBd() {
+        EntityManager lectura = entityManagerFactory.createEntityManager();
+        try {
+            return lectura.find(ProductoVariante.class, variante.getId()).getStock();
+        } finally {
+            lectura.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.carrito.JpaCarritoStore;
+import com.proyecto.StoreCollection.carrito.VarianteCarritoCache;
+import com.proyecto.StoreCollection.dto.response.CarritoResponse;
+import com.proyecto.StoreCollection.entity.Atributo;
+import com.proyecto.StoreCollection.entity.Categoria;
+import com.proyecto.StoreCollection.entity.Producto;
+import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.support.JpaSliceTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * findBySessionId arma la respuesta con una consulta para las líneas y otra (proyección)
+ * para todas sus variantes: el número de sentencias no depende del tamaño del carrito.
+ */
+@Import({CarritoServiceImpl.class, JpaCarritoStore.class, VarianteCarritoCache.class, CacheRegistry.class,
+        ReservaStockLedger.class, WhatsappMensajeTemplate.class})
+@TestPropertySource(properties = "app.carrito.store=jpa")
+class CarritoServiceConsultasTest extends JpaSliceTest {
+
+    private static final int ITEMS = 15;
+
+    @Autowired
+    private CarritoService carritoService;
+
+    @Test
+    void findBySessionIdUsaLasMismasSentenciasConUnoQueConMuchosItems() {
+        Tienda tienda = tienda();
+        Categoria categoria = categoria(tienda);
+        Atributo color = atributo(tienda, "Color");
+        Atributo talla = atributo(tienda, "Talla");
+
+        Producto unico = producto(categoria, "Polo básico");
+        lineaCarrito("sesion-uno", variante(unico, "UNO-1", 5,
+                atributoValor(color, "Rojo"), atributoValor(talla, "M")), 1);
+
+        // Variantes distintas: la caché de variantes está fría para ambos carritos
+        for (int i = 0; i < ITEMS; i++) {
+            Producto producto = producto(categoria, "Producto " + i);
+            lineaCarrito("sesion-muchos", variante(producto, "MUCHOS-" + i, 10,
+                    atributoValor(color, "Color " + i), atributoValor(talla, "Talla " + i)), 2);
+        }
+
+        empezarConteo();
+        List<CarritoResponse> uno = carritoService.findBySessionId("sesion-uno", tienda.getId());
+        long sentenciasUno = sentencias();
+
+        empezarConteo();
+        List<CarritoResponse> muchos = carritoService.findBySessionId("sesion-muchos", tienda.getId());
+        long sentenciasMuchos = sentencias();
+
+        assertEquals(1, uno.size());
+        assertEquals(ITEMS, muchos.size());
+        assertTrue(muchos.stream().allMatch(r -> r.getAtributos() != null && r.getAtributos().size() == 2));
+
+        assertEquals(2, sentenciasUno, "líneas del carrito + proyección de variantes");
+        assertEquals(sentenciasUno, sentenciasMuchos);
+    }
+
+    @Test
+    void findBySessionIdNoConsultaVariantesYaCacheadas() {
+        Tienda tienda = tienda();
+        Producto producto = producto(categoria(tienda), "Gorra");
+        lineaCarrito("sesion-cache", variante(producto, "CACHE-1", 3), 1);
+        empezarConteo();
+
+        carritoService.findBySessionId("sesion-cache", tienda.getId());
+        empezarConteo();
+        carritoService.findBySessionId("sesion-cache", tienda.getId());
+
+        assertEquals(1, sentencias(), "solo las líneas del carrito");
+    }
+}
@@ -0,0 +1,106 @@
+package com.proyecto.StoreCollection.service;
+
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.carrito.JpaCarritoStore;
+import com.proyecto.StoreCollection.carrito.VarianteCarritoCache;
+import com.proyecto.StoreCollection.dto.request.CarritoSincronizarRequest;
+import com.proyecto.StoreCollection.dto.response.CarritoResponse;
+import com.proyecto.StoreCollection.entity.Categoria;
+import com.proyecto.StoreCollection.entity.ProductoVariante;
+import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.support.JpaSliceTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * sincronizar reserva antes de escribir: sin stock no toca el carrito ni sus reservas, y las
+ * líneas nuevas quedan reservadas con el id que les asignó el store.
+ */
+@Import({CarritoServiceImpl.class, JpaCarritoStore.class, VarianteCarritoCache.class, CacheRegistry.class,
+        ReservaStockLedger.class, WhatsappMensajeTemplate.class})
+@TestPropertySource(properties = "app.carrito.store=jpa")
+class CarritoSincronizarReservasTest extends JpaSliceTest {
+
+    private static final String SESION = "sesion-sync";
+
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private ReservaStockLedger ledger;
+
+    private Tienda tienda;
+    private ProductoVariante polo;
+    private ProductoVariante gorra;
+    private ProductoVariante media;
+
+    @BeforeEach
+    void datos() {
+        tienda = tienda();
+        Categoria categoria = categoria(tienda);
+        polo = variante(producto(categoria, "Polo"), "SYNC-POLO", 3);
+        gorra = variante(producto(categoria, "Gorra"), "SYNC-GORRA", 2);
+        media = variante(producto(categoria, "Media"), "SYNC-MEDIA", 5);
+        em.flush();
+    }
+
+    @Test
+    void sinStockNoEscribeNiTocaLasReservas() {
+        CarritoResponse linea = carritoService.sincronizar(SESION, tienda.getId(), pedido(polo, 1)).get(0);
+        // Otra sesión tiene toda la gorra
+        ledger.reservarTodas("otra", List.of(new ReservaStockLedger.Linea(999_999, gorra.getId(), 2, 2)));
+
+        assertThrows(IllegalStateException.class,
+                () -> carritoService.sincronizar(SESION, tienda.getId(), pedido(polo, 2, gorra, 1)));
+
+        List<CarritoResponse> carrito = carritoService.findBySessionId(SESION, tienda.getId());
+        assertEquals(1, carrito.size());
+        assertEquals(linea.getId(), carrito.get(0).getId(), "la línea conserva su id");
+        assertEquals(1, carrito.get(0).getCantidad());
+        assertEquals(1, ledger.reservado(polo.getId()));
+        assertEquals(2, ledger.reservado(gorra.getId()), "solo la otra sesión");
+
+        // La reserva sigue colgada del id de la línea: al borrarla se suelta
+        carritoService.deleteById(linea.getId());
+        assertEquals(0, ledger.reservado(polo.getId()));
+    }
+
+    @Test
+    void lasLineasNuevasQuedanReservadasConSuId() {
+        carritoService.sincronizar(SESION, tienda.getId(), pedido(polo, 1, gorra, 1));
+
+        List<CarritoResponse> carrito = carritoService.sincronizar(SESION, tienda.getId(), pedido(polo, 2, media, 4));
+
+        assertEquals(2, ledger.reservado(polo.getId()));
+        assertEquals(0, ledger.reservado(gorra.getId()), "salió del carrito");
+        assertEquals(4, ledger.reservado(media.getId()));
+
+        CarritoResponse nueva = carrito.stream()
+                .filter(r -> r.getVarianteId().equals(media.getId()))
+                .findFirst().orElseThrow();
+        carritoService.deleteById(nueva.getId());
+        assertEquals(0, ledger.reservado(media.getId()));
+    }
+
+    private static CarritoSincronizarRequest pedido(Object... varianteYCantidad) {
+        List<CarritoSincronizarRequest.ItemRequest> items = new ArrayList<>();
+        for (int i = 0; i < varianteYCantidad.length; i += 2) {
+            CarritoSincronizarRequest.ItemRequest item = new CarritoSincronizarRequest.ItemRequest();
+            item.setVarianteId(((ProductoVariante) varianteYCantidad[i]).getId());
+            item.setCantidad((Integer) varianteYCantidad[i + 1]);
+            items.add(item);
+        }
+        CarritoSincronizarRequest request = new CarritoSincronizarRequest();
+        request.setItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,115 @@
+package com.proyecto.StoreCollection.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.StoreCollection.cache.CacheRegistry;
+import com.proyecto.StoreCollection.dto.special.ProductoAdminListDTO;
+import com.proyecto.StoreCollection.entity.Categoria;
+import com.proyecto.StoreCollection.entity.Producto;
+import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.search.ProductoSearchIndex;
+import com.proyecto.StoreCollection.service.Cloudinary.CloudinaryService;
+import com.proyecto.StoreCollection.support.JpaSliceTest;
+import com.proyecto.StoreCollection.tenant.TenantSlugCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El listado admin de productos sale de una consulta agrupada por página (más el COUNT):
+ * ni el tamaño de la página ni la cantidad de variantes por producto agregan sentencias.
+ */
+@Import({ProductoServiceImpl.class, ProductoSearchIndex.class, CacheRegistry.class, ReservaStockLedger.class})
+class ProductoAdminListConsultasTest extends JpaSliceTest {
+
+    private static final int PRODUCTOS = 12;
+    private static final int VARIANTES = 3;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @MockitoBean
+    private TiendaService tiendaService;
+    @MockitoBean
+    private CloudinaryService cloudinaryService;
+    @MockitoBean
+    private TenantSlugCache tenantSlugCache;
+    @MockitoBean
+    private CatalogoPublicoCache catalogoPublicoCache;
+    @MockitoBean
+    private ProductoDetalleCache productoDetalleCache;
+    @MockitoBean
+    private ObjectMapper objectMapper;
+
+    private Tienda tienda;
+
+    @BeforeEach
+    void datos() {
+        Tienda otra = tienda();
+        variante(producto(categoria(otra), "Llavero"), "OTRA-1", 4);
+
+        tienda = tienda();
+        Categoria categoria = categoria(tienda);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            Producto producto = producto(categoria, "Camisa " + i);
+            for (int v = 0; v < VARIANTES; v++) {
+                variante(producto, "CAM-" + i + "-" + v, 5);
+            }
+        }
+    }
+
+    @Test
+    void listarTodosAdminListEsUnaConsultaMasElConteo() {
+        long pequena = contar(() -> productoService.listarTodosAdminList(PageRequest.of(0, 2)));
+        long grande = contar(() -> productoService.listarTodosAdminList(PageRequest.of(0, 10)));
+
+        assertEquals(2, pequena, "página agrupada + COUNT");
+        assertEquals(pequena, grande);
+    }
+
+    @Test
+    void listarPorTiendaAdminListEsUnaConsultaMasElConteo() {
+        AtomicReference<Page<ProductoAdminListDTO>> pagina = new AtomicReference<>();
+        long pequena = contar(() -> productoService.listarPorTiendaAdminList(tienda.getId(), PageRequest.of(0, 2)));
+        long grande = contar(() -> pagina.set(productoService.listarPorTiendaAdminList(tienda.getId(), PageRequest.of(0, 10))));
+
+        assertEquals(2, pequena, "página agrupada + COUNT");
+        assertEquals(pequena, grande);
+
+        assertEquals(PRODUCTOS, pagina.get().getTotalElements());
+        assertTrue(pagina.get().getContent().stream().allMatch(p ->
+                p.getCantidadVariantes() == VARIANTES && p.getStockTotal() == VARIANTES * 5));
+    }
+
+    @Test
+    void buscarPorNombreYTiendaAdminListCargaSoloLaPaginaDelIndice() {
+        // Primera búsqueda: arma el índice de la tienda (una consulta) y carga la página
+        long primera = contar(() -> productoService.buscarPorNombreYTiendaAdminList(tienda.getId(), "camisa", PageRequest.of(0, 2)));
+
+        AtomicReference<Page<ProductoAdminListDTO>> pagina = new AtomicReference<>();
+        long pequena = contar(() -> productoService.buscarPorNombreYTiendaAdminList(tienda.getId(), "camisa", PageRequest.of(0, 2)));
+        long grande = contar(() -> pagina.set(productoService.buscarPorNombreYTiendaAdminList(tienda.getId(), "camisa", PageRequest.of(0, 10))));
+
+        assertEquals(2, primera, "índice + página");
+        assertEquals(1, pequena, "el total sale del índice: sin COUNT");
+        assertEquals(pequena, grande);
+
+        assertEquals(PRODUCTOS, pagina.get().getTotalElements());
+        assertEquals(10, pagina.get().getContent().size());
+        assertTrue(pagina.get().getContent().stream().allMatch(p -> p.getCantidadVariantes() == VARIANTES));
+    }
+
+    private long contar(Runnable consulta) {
+        empezarConteo();
+        consulta.run();
+        return sentencias();
+    }
+}
@@ -0,0 +1,147 @@
+package com.proyecto.StoreCollection.support;
+
+import com.proyecto.StoreCollection.entity.Atributo;
+import com.proyecto.StoreCollection.entity.AtributoValor;
+import com.proyecto.StoreCollection.entity.Carrito;
+import com.proyecto.StoreCollection.entity.Categoria;
+import com.proyecto.StoreCollection.entity.Plan;
+import com.proyecto.StoreCollection.entity.Producto;
+import com.proyecto.StoreCollection.entity.ProductoVariante;
+import com.proyecto.StoreCollection.entity.Tienda;
+import com.proyecto.StoreCollection.entity.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base de los tests sobre H2 (solo la capa JPA): esquema generado desde las entidades,
+ * estadísticas de Hibernate para contar sentencias y helpers para armar datos.
+ * Las consultas nativas de MySQL (ON DUPLICATE KEY, etc.) no se prueban aquí.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+public abstract class JpaSliceTest {
+
+    private static final AtomicInteger SECUENCIA = new AtomicInteger();
+
+    @Autowired
+    protected TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // ======================== CONTEO DE SENTENCIAS ========================
+
+    /** Escribe lo pendiente, vacía el contexto de persistencia y pone el contador en cero. */
+    protected void empezarConteo() {
+        em.flush();
+        em.clear();
+        estadisticas().clear();
+    }
+
+    /** Sentencias JDBC preparadas desde el último empezarConteo(). */
+    protected long sentencias() {
+        return estadisticas().getPrepareStatementCount();
+    }
+
+    private Statistics estadisticas() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // ======================== DATOS ========================
+
+    protected Tienda tienda() {
+        int n = SECUENCIA.incrementAndGet();
+
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Dueño " + n);
+        usuario.setEmail("owner" + n + "@test.com");
+        usuario.setPassword("x");
+        usuario.setRol(Usuario.Rol.OWNER);
+        em.persist(usuario);
+
+        Plan plan = new Plan();
+        plan.setNombre("Plan " + n);
+        plan.setSlug("plan-" + n);
+        em.persist(plan);
+
+        Tienda tienda = new Tienda();
+        tienda.setNombre("Tienda " + n);
+        tienda.setSlug("tienda-" + n);
+        tienda.setWhatsapp("987654321");
+        tienda.setActivo(true);
+        tienda.setMoneda(Tienda.Moneda.SOLES);
+        tienda.setUser(usuario);
+        tienda.setPlan(plan);
+        return em.persist(tienda);
+    }
+
+    protected Categoria categoria(Tienda tienda) {
+        int n = SECUENCIA.incrementAndGet();
+        Categoria categoria = new Categoria();
+        categoria.setNombre("Categoría " + n);
+        categoria.setSlug("categoria-" + n);
+        categoria.setTienda(tienda);
+        return em.persist(categoria);
+    }
+
+    protected Producto producto(Categoria categoria, String nombre) {
+        int n = SECUENCIA.incrementAndGet();
+        Producto producto = new Producto();
+        producto.setNombre(nombre);
+        producto.setSlug("producto-" + n);
+        producto.setCategoria(categoria);
+        producto.setTienda(categoria.getTienda());
+        return em.persist(producto);
+    }
+
+    protected ProductoVariante variante(Producto producto, String sku, int stock, AtributoValor... atributos) {
+        ProductoVariante variante = new ProductoVariante();
+        variante.setSku(sku);
+        variante.setPrecio(new BigDecimal("19.90"));
+        variante.setStock(stock);
+        variante.setActivo(true);
+        variante.setImagenUrl("https://img.test/" + sku + ".png");
+        variante.setProducto(producto);
+        variante.setTienda(producto.getTienda());
+        for (AtributoValor av : atributos) {
+            variante.getAtributos().add(av);
+        }
+        producto.getVariantes().add(variante);
+        return em.persist(variante);
+    }
+
+    protected AtributoValor atributoValor(Atributo atributo, String valor) {
+        AtributoValor av = new AtributoValor();
+        av.setAtributo(atributo);
+        av.setTienda(atributo.getTienda());
+        av.setValor(valor);
+        return em.persist(av);
+    }
+
+    protected Atributo atributo(Tienda tienda, String nombre) {
+        Atributo atributo = new Atributo();
+        atributo.setNombre(nombre);
+        atributo.setTienda(tienda);
+        return em.persist(atributo);
+    }
+
+    protected Carrito lineaCarrito(String sessionId, ProductoVariante variante, int cantidad) {
+        Carrito carrito = new Carrito();
+        carrito.setSessionId(sessionId);
+        carrito.setTienda(variante.getTienda());
+        carrito.setVariante(variante);
+        carrito.setCantidad(cantidad);
+        return em.persist(carrito);
+    }
+}